@@ -29,6 +29,13 @@ public class Page<T> implements Serializable {
 	public final static String ORDER_DIRECTION_ASC = "ASC";
 	public final static String ORDER_DIRECTION_DESC = "DESC";
 
+	/**
+	 * 总数计算方式：精确count、短期缓存的精确count、数据库执行计划估算
+	 */
+	public final static String COUNT_EXACT = "exact";
+	public final static String COUNT_CACHED = "cached";
+	public final static String COUNT_ESTIMATED = "estimated";
+
 	/**
 	 * 默认每页记录数
 	 */
@@ -70,9 +77,24 @@ public class Page<T> implements Serializable {
 	 */
 	protected long totalCount = 0;
 	protected boolean autoCount = true;
+	private String countStrategy = COUNT_EXACT;
+	/**
+	 * totalCount是否为估算值
+	 */
+	private boolean countEstimated;
 	protected List<T> result = new ArrayList<T>();
 	private String sEcho;
 
+	/**
+	 * keyset分页：上一页最后一条记录的排序字段(orderField)值及id，afterId为null表示第一页
+	 */
+	private Object afterValue;
+	private Long afterId;
+	/**
+	 * keyset分页：是否还有下一页
+	 */
+	private boolean hasNext;
+
 	public String getsEcho() {
 		return sEcho;
 	}
@@ -102,6 +124,42 @@ public class Page<T> implements Serializable {
 		this.autoCount = autoCount;
 	}
 
+	/**
+	 * 返回 countStrategy 的值
+	 * 
+	 * @return countStrategy
+	 */
+	public String getCountStrategy() {
+		return countStrategy;
+	}
+
+	/**
+	 * 设置 countStrategy 的值：COUNT_EXACT / COUNT_CACHED / COUNT_ESTIMATED
+	 * 
+	 * @param countStrategy
+	 */
+	public void setCountStrategy(String countStrategy) {
+		this.countStrategy = countStrategy;
+	}
+
+	/**
+	 * 返回 countEstimated 的值
+	 * 
+	 * @return countEstimated
+	 */
+	public boolean isCountEstimated() {
+		return countEstimated;
+	}
+
+	/**
+	 * 设置 countEstimated 的值
+	 * 
+	 * @param countEstimated
+	 */
+	public void setCountEstimated(boolean countEstimated) {
+		this.countEstimated = countEstimated;
+	}
+
 	/**
 	 * 返回 pageNum 的值
 	 * 
@@ -283,6 +341,60 @@ public class Page<T> implements Serializable {
 		return pageNum * this.numPerPage;
 	}
 
+	/**
+	 * 返回 afterValue 的值
+	 * 
+	 * @return afterValue
+	 */
+	public Object getAfterValue() {
+		return afterValue;
+	}
+
+	/**
+	 * 设置 afterValue 的值
+	 * 
+	 * @param afterValue
+	 */
+	public void setAfterValue(Object afterValue) {
+		this.afterValue = afterValue;
+	}
+
+	/**
+	 * 返回 afterId 的值
+	 * 
+	 * @return afterId
+	 */
+	public Long getAfterId() {
+		return afterId;
+	}
+
+	/**
+	 * 设置 afterId 的值
+	 * 
+	 * @param afterId
+	 */
+	public void setAfterId(Long afterId) {
+		this.afterId = afterId;
+	}
+
+	/**
+	 * 返回 hasNext 的值
+	 * 
+	 * @return hasNext
+	 */
+	public boolean isHasNext() {
+		return hasNext;
+	}
+
+	/**
+	 * 设置 hasNext 的值
+	 * 
+	 * @param hasNext
+	 */
+	public void setHasNext(boolean hasNext) {
+		this.hasNext = hasNext;
+	}
+
 	/**
 	 * 取得页内的记录列表.
 	 */
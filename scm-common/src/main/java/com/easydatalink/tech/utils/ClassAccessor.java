@@ -0,0 +1,336 @@
+package com.easydatalink.tech.utils;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * 按类缓存的反射访问器.
+ *
+ * 字段、方法、泛型参数及JavaBean属性的getter只解析一次, 并预先转换为MethodHandle或LambdaMetafactory生成的Function,
+ * 之后的读写接近直接调用. ReflectionUtils的静态方法都经由这里实现.
+ * 访问器挂在ClassValue上, 不阻止类及其ClassLoader被回收; 字段在第一次按名访问时才解析.
+ */
+public final class ClassAccessor {
+
+	private static final ClassValue<ClassAccessor> ACCESSORS = new ClassValue<ClassAccessor>() {
+		@Override
+		protected ClassAccessor computeValue(Class<?> type) {
+			return new ClassAccessor(type);
+		}
+	};
+
+	private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+	// 方法查找结果为空时的占位
+	private static final MethodAccessor NO_METHOD = new MethodAccessor(null, null);
+
+	// 字段查找结果为空时的占位
+	private static final FieldAccessor NO_FIELD = new FieldAccessor();
+
+	private final Class<?> type;
+
+	// 已访问过的自身及父类声明的字段, 子类优先
+	private final ConcurrentMap<String, FieldAccessor> fields = new ConcurrentHashMap<String, FieldAccessor>();
+
+	private final ConcurrentMap<MethodKey, MethodAccessor> methods = new ConcurrentHashMap<MethodKey, MethodAccessor>();
+
+	private final ConcurrentMap<Integer, Class<?>> superClassGenericTypes = new ConcurrentHashMap<Integer, Class<?>>();
+
+	private volatile Map<String, Function<Object, Object>> propertyGetters;
+
+	public static ClassAccessor of(Class<?> type) {
+		return ACCESSORS.get(type);
+	}
+
+	private ClassAccessor(Class<?> type) {
+		this.type = type;
+	}
+
+	public Class<?> getType() {
+		return type;
+	}
+
+	/**
+	 * 自身或父类声明的字段, 找不到返回null.
+	 */
+	public Field getField(String name) {
+		return fieldAccessor(name).field;
+	}
+
+	public Object getFieldValue(Object target, String name) {
+		try {
+			return field(name, target).getter.invokeExact(target);
+		} catch (ClassCastException e) {
+			throw new IllegalArgumentException("Can not get field [" + name + "] from " + target, e);
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new RuntimeException("Reflection Exception.", e);
+		}
+	}
+
+	public void setFieldValue(Object target, String name, Object value) {
+		try {
+			field(name, target).setter.invokeExact(target, value);
+		} catch (ClassCastException e) {
+			throw new IllegalArgumentException("Can not set field [" + name + "] to " + value, e);
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new RuntimeException("Reflection Exception.", e);
+		}
+	}
+
+	/**
+	 * 自身或父类声明的方法, 找不到返回null.
+	 */
+	public Method getMethod(String name, Class<?>[] parameterTypes) {
+		return method(name, parameterTypes).method;
+	}
+
+	/**
+	 * 调用自身或父类声明的方法, 无视private/protected修饰符.
+	 */
+	public Object invoke(Object target, String name, Class<?>[] parameterTypes, Object[] parameters) {
+		MethodAccessor m = method(name, parameterTypes);
+		if (m.method == null) {
+			throw new IllegalArgumentException("Could not find method [" + name + "] on target [" + target + "]");
+		}
+		try {
+			return m.invoker.invokeExact(target, parameters);
+		} catch (Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw ReflectionUtils.convertReflectionExceptionToUnchecked(new InvocationTargetException(e));
+		}
+	}
+
+	/**
+	 * 可读的JavaBean属性(不含class)及其getter.
+	 */
+	public Map<String, Function<Object, Object>> getPropertyGetters() {
+		Map<String, Function<Object, Object>> getters = propertyGetters;
+		if (getters == null) {
+			getters = resolvePropertyGetters();
+			propertyGetters = getters;
+		}
+		return getters;
+	}
+
+	/**
+	 * 属性的getter, 不存在返回null.
+	 */
+	public Function<Object, Object> getPropertyGetter(String name) {
+		return getPropertyGetters().get(name);
+	}
+
+	/**
+	 * 父类的第index个泛型参数, 见ReflectionUtils.getSuperClassGenericType.
+	 */
+	public Class<?> getSuperClassGenericType(int index) {
+		Class<?> result = superClassGenericTypes.get(index);
+		if (result == null) {
+			result = superClassGenericTypes.computeIfAbsent(index,
+					i -> ReflectionUtils.resolveSuperClassGenericType(type, i));
+		}
+		return result;
+	}
+
+	private FieldAccessor field(String name, Object target) {
+		FieldAccessor f = fieldAccessor(name);
+		if (f.field == null) {
+			throw new IllegalArgumentException("Could not find field [" + name + "] on target [" + target + "]");
+		}
+		return f;
+	}
+
+	private FieldAccessor fieldAccessor(String name) {
+		FieldAccessor f = fields.get(name);
+		if (f == null) {
+			f = fields.computeIfAbsent(name, this::resolveField);
+		}
+		return f;
+	}
+
+	private FieldAccessor resolveField(String name) {
+		for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+			try {
+				return new FieldAccessor(c.getDeclaredField(name));
+			} catch (NoSuchFieldException e) {//NOSONAR
+				// Field不在当前类定义,继续向上转型
+			}
+		}
+		return NO_FIELD;
+	}
+
+	private MethodAccessor method(String name, Class<?>[] parameterTypes) {
+		MethodKey key = new MethodKey(name, parameterTypes);
+		MethodAccessor m = methods.get(key);
+		if (m == null) {
+			m = methods.computeIfAbsent(key, this::resolveMethod);
+		}
+		return m;
+	}
+
+	private MethodAccessor resolveMethod(MethodKey key) {
+		for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+			try {
+				Method method = c.getDeclaredMethod(key.name, key.parameterTypes);
+				method.setAccessible(true);
+				MethodHandle handle = LOOKUP.unreflect(method);
+				if (Modifier.isStatic(method.getModifiers())) {
+					handle = MethodHandles.dropArguments(handle, 0, Object.class);
+				}
+				int n = key.parameterTypes.length;
+				MethodHandle invoker = handle.asType(MethodType.genericMethodType(n + 1)).asSpreader(Object[].class, n)
+						.asType(MethodType.methodType(Object.class, Object.class, Object[].class));
+				return new MethodAccessor(method, invoker);
+			} catch (NoSuchMethodException e) {//NOSONAR
+				// Method不在当前类定义,继续向上转型
+			} catch (IllegalAccessException e) {
+				throw new IllegalArgumentException("Reflection Exception.", e);
+			}
+		}
+		return NO_METHOD;
+	}
+
+	private Map<String, Function<Object, Object>> resolvePropertyGetters() {
+		PropertyDescriptor[] descriptors;
+		try {
+			descriptors = Introspector.getBeanInfo(type, Object.class).getPropertyDescriptors();
+		} catch (IntrospectionException e) {
+			throw new IllegalArgumentException("Can not introspect " + type.getName(), e);
+		}
+		Map<String, Function<Object, Object>> getters = new LinkedHashMap<String, Function<Object, Object>>();
+		for (PropertyDescriptor pd : descriptors) {
+			if (pd.getReadMethod() != null) {
+				getters.put(pd.getName(), compileGetter(pd.getReadMethod()));
+			}
+		}
+		return Collections.unmodifiableMap(getters);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Function<Object, Object> compileGetter(Method method) {
+		final MethodHandle handle;
+		try {
+			method.setAccessible(true);
+			handle = LOOKUP.unreflect(method);
+		} catch (IllegalAccessException e) {
+			throw new IllegalArgumentException("Reflection Exception.", e);
+		}
+		try {
+			CallSite site = LambdaMetafactory.metafactory(LOOKUP, "apply", MethodType.methodType(Function.class),
+					MethodType.methodType(Object.class, Object.class), handle, handle.type().wrap());
+			return (Function<Object, Object>) site.getTarget().invokeExact();
+		} catch (Throwable e) {
+			// 非public类等无法生成lambda时退回MethodHandle调用
+			final MethodHandle generic = handle.asType(MethodType.methodType(Object.class, Object.class));
+			return bean -> {
+				try {
+					return generic.invokeExact(bean);
+				} catch (RuntimeException | Error ex) {
+					throw ex;
+				} catch (Throwable ex) {
+					throw new RuntimeException("Reflection Exception.", ex);
+				}
+			};
+		}
+	}
+
+	private static final class FieldAccessor {
+		final Field field;
+		final MethodHandle getter;
+		final MethodHandle setter;
+
+		private FieldAccessor() {
+			this.field = null;
+			this.getter = null;
+			this.setter = null;
+		}
+
+		FieldAccessor(Field field) {
+			this.field = field;
+			ReflectionUtils.makeAccessible(field);
+			try {
+				MethodHandle get = LOOKUP.unreflectGetter(field);
+				MethodHandle set = Modifier.isFinal(field.getModifiers()) ? null : LOOKUP.unreflectSetter(field);
+				if (Modifier.isStatic(field.getModifiers())) {
+					get = MethodHandles.dropArguments(get, 0, Object.class);
+					if (set != null)
+						set = MethodHandles.dropArguments(set, 0, Object.class);
+				}
+				this.getter = get.asType(MethodType.methodType(Object.class, Object.class));
+				this.setter = set == null ? finalFieldSetter(field)
+						: set.asType(MethodType.methodType(void.class, Object.class, Object.class));
+			} catch (IllegalAccessException e) {
+				throw new IllegalArgumentException("Reflection Exception.", e);
+			}
+		}
+
+		/**
+		 * final字段不能生成setter句柄, 保留Field.set的原有行为
+		 */
+		private static MethodHandle finalFieldSetter(Field field) throws IllegalAccessException {
+			try {
+				MethodHandle set = LOOKUP.findVirtual(Field.class, "set",
+						MethodType.methodType(void.class, Object.class, Object.class));
+				return set.bindTo(field);
+			} catch (NoSuchMethodException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+
+	private static final class MethodAccessor {
+		final Method method;
+		final MethodHandle invoker;
+
+		MethodAccessor(Method method, MethodHandle invoker) {
+			this.method = method;
+			this.invoker = invoker;
+		}
+	}
+
+	private static final class MethodKey {
+		final String name;
+		final Class<?>[] parameterTypes;
+		final int hash;
+
+		MethodKey(String name, Class<?>[] parameterTypes) {
+			this.name = name;
+			this.parameterTypes = parameterTypes == null ? new Class<?>[0] : parameterTypes;
+			this.hash = name.hashCode() * 31 + Arrays.hashCode(this.parameterTypes);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof MethodKey))
+				return false;
+			MethodKey other = (MethodKey) o;
+			return name.equals(other.name) && Arrays.equals(parameterTypes, other.parameterTypes);
+		}
+	}
+}
@@ -18,6 +18,8 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 
 import org.apache.commons.beanutils.ConvertUtils;
 import org.apache.commons.beanutils.PropertyUtils;
@@ -38,6 +40,9 @@ public class ReflectionUtils {
 
 	private static Logger logger = LoggerFactory.getLogger(ReflectionUtils.class);
 
+	private static final Class<?>[] NO_TYPES = new Class<?>[0];
+	private static final Object[] NO_ARGS = new Object[0];
+
 	static {
 		DateConverter dc = new DateConverter();
 		dc.setUseLocaleFormat(true);
@@ -50,7 +55,7 @@ public class ReflectionUtils {
 	 */
 	public static Object invokeGetterMethod(Object target, String propertyName) {
 		String getterMethodName = "get" + StringUtils.capitalize(propertyName);
-		return invokeMethod(target, getterMethodName, new Class[] {}, new Object[] {});
+		return invokeMethod(target, getterMethodName, NO_TYPES, NO_ARGS);
 	}
 
 	/**
@@ -75,40 +80,16 @@ public class ReflectionUtils {
 	 * 直接读取对象属性值, 无视private/protected修饰符, 不经过getter函数.
 	 */
 	public static Object getFieldValue(final Object object, final String fieldName) {
-		Field field = getDeclaredField(object, fieldName);
-
-		if (field == null) {
-			throw new IllegalArgumentException("Could not find field [" + fieldName + "] on target [" + object + "]");
-		}
-
-		makeAccessible(field);
-
-		Object result = null;
-		try {
-			result = field.get(object);
-		} catch (IllegalAccessException e) {
-			logger.error("不可能抛出的异常{}", e.getMessage());
-		}
-		return result;
+		Assert.notNull(object, "object不能为空");
+		return ClassAccessor.of(object.getClass()).getFieldValue(object, fieldName);
 	}
 
 	/**
 	 * 直接设置对象属性值, 无视private/protected修饰符, 不经过setter函数.
 	 */
 	public static void setFieldValue(final Object object, final String fieldName, final Object value) {
-		Field field = getDeclaredField(object, fieldName);
-
-		if (field == null) {
-			throw new IllegalArgumentException("Could not find field [" + fieldName + "] on target [" + object + "]");
-		}
-
-		makeAccessible(field);
-
-		try {
-			field.set(object, value);
-		} catch (IllegalAccessException e) {
-			logger.error("不可能抛出的异常:{}", e.getMessage());
-		}
+		Assert.notNull(object, "object不能为空");
+		ClassAccessor.of(object.getClass()).setFieldValue(object, fieldName, value);
 	}
 
 	/**
@@ -116,18 +97,8 @@ public class ReflectionUtils {
 	 */
 	public static Object invokeMethod(final Object object, final String methodName, final Class<?>[] parameterTypes,
 			final Object[] parameters) {
-		Method method = getDeclaredMethod(object, methodName, parameterTypes);
-		if (method == null) {
-			throw new IllegalArgumentException("Could not find method [" + methodName + "] on target [" + object + "]");
-		}
-
-		method.setAccessible(true);
-
-		try {
-			return method.invoke(object, parameters);
-		} catch (Exception e) {
-			throw convertReflectionExceptionToUnchecked(e);
-		}
+		Assert.notNull(object, "object不能为空");
+		return ClassAccessor.of(object.getClass()).invoke(object, methodName, parameterTypes, parameters);
 	}
 
 	/**
@@ -138,15 +109,7 @@ public class ReflectionUtils {
 	public static Field getDeclaredField(final Object object, final String fieldName) {
 		Assert.notNull(object, "object不能为空");
 		Assert.hasText(fieldName, "fieldName");
-		for (Class<?> superClass = object.getClass(); superClass != Object.class; superClass = superClass
-				.getSuperclass()) {
-			try {
-				return superClass.getDeclaredField(fieldName);
-			} catch (NoSuchFieldException e) {//NOSONAR
-				// Field不在当前类定义,继续向上转型
-			}
-		}
-		return null;
+		return ClassAccessor.of(object.getClass()).getField(fieldName);
 	}
 
 	/**
@@ -165,16 +128,7 @@ public class ReflectionUtils {
 	 */
 	protected static Method getDeclaredMethod(Object object, String methodName, Class<?>[] parameterTypes) {
 		Assert.notNull(object, "object不能为空");
-
-		for (Class<?> superClass = object.getClass(); superClass != Object.class; superClass = superClass
-				.getSuperclass()) {
-			try {
-				return superClass.getDeclaredMethod(methodName, parameterTypes);
-			} catch (NoSuchMethodException e) {//NOSONAR
-				// Method不在当前类定义,继续向上转型
-			}
-		}
-		return null;
+		return ClassAccessor.of(object.getClass()).getMethod(methodName, parameterTypes);
 	}
 
 	/**
@@ -201,8 +155,16 @@ public class ReflectionUtils {
 	 * @param index the Index of the generic ddeclaration,start from 0.
 	 * @return the index generic declaration, or Object.class if cannot be determined
 	 */
-	@SuppressWarnings("rawtypes")
+	@SuppressWarnings({ "unchecked", "rawtypes" })
 	public static Class getSuperClassGenericType(Class clazz, final int index) {
+		return ClassAccessor.of(clazz).getSuperClassGenericType(index);
+	}
+
+	/**
+	 * getSuperClassGenericType的实际解析, 结果由ClassAccessor按类缓存.
+	 */
+	@SuppressWarnings("rawtypes")
+	static Class resolveSuperClassGenericType(Class clazz, final int index) {
 		if (clazz.getSimpleName().contains("$$")) {
 			clazz = clazz.getSuperclass();
 		}
@@ -282,7 +244,7 @@ public class ReflectionUtils {
 
 		try {
 			for (Object obj : collection) {
-				list.add(PropertyUtils.getProperty(obj, propertyName));
+				list.add(getProperty(obj, propertyName));
 			}
 		} catch (Exception e) {
 			throw convertReflectionExceptionToUnchecked(e);
@@ -291,6 +253,19 @@ public class ReflectionUtils {
 		return list;
 	}
 
+	/**
+	 * 简单属性名走ClassAccessor缓存的getter, 嵌套/索引/Map属性仍交给PropertyUtils.
+	 */
+	private static Object getProperty(Object obj, String propertyName) throws Exception {
+		if (obj != null && !(obj instanceof Map) && StringUtils.containsNone(propertyName, ".[(")) {
+			Function<Object, Object> getter = ClassAccessor.of(obj.getClass()).getPropertyGetter(propertyName);
+			if (getter != null) {
+				return getter.apply(obj);
+			}
+		}
+		return PropertyUtils.getProperty(obj, propertyName);
+	}
+
 	/**
 	 * 提取集合中的对象的属性(通过getter函数), 组合成由分割符分隔的字符串.
 	 * 
@@ -0,0 +1,52 @@
+package com.easydatalink.tech.loadbalancer;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.netflix.client.config.IClientConfig;
+import com.netflix.loadbalancer.AbstractLoadBalancerRule;
+import com.netflix.loadbalancer.ILoadBalancer;
+import com.netflix.loadbalancer.Server;
+
+/**
+ * 按响应时间和在途请求数选择实例的Ribbon规则(power of two choices)
+ * <p>
+ * 随机取两个可达实例，选ServerLatencyTracker代价小的一个：慢实例(GC停顿、冷缓存)很快少分流量，
+ * 又不会像总选最优那样把流量集中到同一实例。通过&lt;服务名&gt;.ribbon.NFLoadBalancerRuleClassName配置。
+ */
+public class LatencyAwareRule extends AbstractLoadBalancerRule {
+
+	private final ServerLatencyTracker tracker = ServerLatencyTracker.getInstance();
+
+	@Override
+	public void initWithNiwsConfig(IClientConfig clientConfig) {
+	}
+
+	@Override
+	public Server choose(Object key) {
+		ILoadBalancer lb = getLoadBalancer();
+		if (lb == null) {
+			return null;
+		}
+		List<Server> servers = lb.getReachableServers();
+		if (servers.isEmpty()) {
+			servers = lb.getAllServers();
+		}
+		int size = servers.size();
+		if (size == 0) {
+			return null;
+		}
+		if (size == 1) {
+			return servers.get(0);
+		}
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int i = random.nextInt(size);
+		int j = random.nextInt(size - 1);
+		if (j >= i) {
+			j++;
+		}
+		Server a = servers.get(i);
+		Server b = servers.get(j);
+		return tracker.cost(a.getHostPort()) <= tracker.cost(b.getHostPort()) ? a : b;
+	}
+}
@@ -21,6 +21,21 @@ public class JwtAuthenticationProvider extends DaoAuthenticationProvider {
         setUserDetailsService(userDetailsService);
     }
 
+    /**
+     * 登录时已查询到用户则直接使用，避免再次远程查询
+     */
+    @Override
+    protected UserDetails retrieveUser(String username, UsernamePasswordAuthenticationToken authentication)
+            throws AuthenticationException {
+        if (authentication instanceof JwtAuthenticatioToken) {
+            UserDetails preloaded = ((JwtAuthenticatioToken) authentication).preloadedUser();
+            if (preloaded != null && preloaded.getUsername().equals(username)) {
+                return preloaded;
+            }
+        }
+        return super.retrieveUser(username, authentication);
+    }
+
     @Override
 	protected void additionalAuthenticationChecks(UserDetails userDetails, UsernamePasswordAuthenticationToken authentication)
 			throws AuthenticationException {
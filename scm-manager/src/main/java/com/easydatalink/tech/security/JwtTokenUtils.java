@@ -1,15 +1,14 @@
 package com.easydatalink.tech.security;
 import java.io.Serializable;
-import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 import javax.servlet.http.HttpServletRequest;
 
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.GrantedAuthority;
+
+import com.easydatalink.tech.security.VerifiedTokenCache.VerifiedToken;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
@@ -35,7 +34,7 @@ public class JwtTokenUtils implements Serializable {
 	/**
 	 * 权限列表
 	 */
-	private static final String AUTHORITIES = "authorities";
+	static final String AUTHORITIES = "authorities";
 	/**
      * 密钥
      */
@@ -77,14 +76,8 @@ public class JwtTokenUtils implements Serializable {
 	 * @return 用户名
 	 */
 	public static String getUsernameFromToken(String token) {
-	    String username;
-	    try {
-	        Claims claims = getClaimsFromToken(token);
-	        username = claims.getSubject();
-	    } catch (Exception e) {
-	        username = null;
-	    }
-	    return username;
+	    VerifiedToken verified = verify(token);
+	    return verified == null ? null : verified.username;
 	}
 	
 	/**
@@ -100,25 +93,11 @@ public class JwtTokenUtils implements Serializable {
 			// 请求令牌不能为空
 			if(SecurityUtils.getAuthentication() == null) {
 				// 上下文中Authentication为空
-				Claims claims = getClaimsFromToken(token);
-				if(claims == null) {
+				VerifiedToken verified = verify(token);
+				if(verified == null || verified.username == null || verified.isExpired()) {
 					return null;
 				}
-				String username = claims.getSubject();
-				if(username == null) {
-					return null;
-				}
-				if(isTokenExpired(token)) {
-					return null;
-				}
-				Object authors = claims.get(AUTHORITIES);
-				List<GrantedAuthority> authorities = new ArrayList<GrantedAuthority>();
-				if (authors != null && authors instanceof List) {
-					for (Object object : (List) authors) {
-						authorities.add(new GrantedAuthorityImpl((String) ((Map) object).get("authority")));
-					}
-				}
-				authentication = new JwtAuthenticatioToken(username, null, authorities, token);
+				authentication = new JwtAuthenticatioToken(verified.username, null, verified.authorities, token);
 			} else {
 				if(validateToken(token, SecurityUtils.getUsername())) {
 					// 如果上下文中Authentication非空，且请求令牌合法，直接返回当前登录认证信息
@@ -145,6 +124,16 @@ public class JwtTokenUtils implements Serializable {
         return claims;
     }
 
+    /**
+     * 验签令牌，同一令牌在缓存有效期内只验签一次
+     *
+     * @param token 令牌
+     * @return 验签失败返回null
+     */
+    private static VerifiedToken verify(String token) {
+        return VerifiedTokenCache.get(token, JwtTokenUtils::getClaimsFromToken);
+    }
+
     /**
 	 * 验证令牌
 	 * @param token
@@ -152,8 +141,8 @@ public class JwtTokenUtils implements Serializable {
 	 * @return
 	 */
 	public static Boolean validateToken(String token, String username) {
-	    String userName = getUsernameFromToken(token);
-	    return (userName.equals(username) && !isTokenExpired(token));
+	    VerifiedToken verified = verify(token);
+	    return verified != null && verified.username != null && verified.username.equals(username) && !verified.isExpired();
 	}
 
 	/**
@@ -180,13 +169,8 @@ public class JwtTokenUtils implements Serializable {
      * @return 是否过期
      */
     public static Boolean isTokenExpired(String token) {
-        try {
-            Claims claims = getClaimsFromToken(token);
-            Date expiration = claims.getExpiration();
-            return expiration.before(new Date());
-        } catch (Exception e) {
-            return false;
-        }
+        VerifiedToken verified = verify(token);
+        return verified != null && verified.isExpired();
     }
 
     /**
@@ -1,4 +1,5 @@
 package com.easydatalink.tech.security;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -30,8 +31,18 @@ public class UserDetailsServiceImpl implements UserDetailsService {
         if (user == null) {
             throw new UsernameNotFoundException("该用户不存在");
         }
+        return createUserDetails(user);
+    }
+
+    /**
+     * 根据已查询到的用户构建认证信息
+     */
+    public UserDetails createUserDetails(SysUser user) {
         // 用户权限列表，根据用户拥有的权限标识与如 @PreAuthorize("hasAuthority('sys:menu:view')") 标注的接口对比，决定是否可以调用接口
         Set<String> permissions = sysUserService.findPermissions(user.getName());
+        if (permissions == null) {
+            permissions = Collections.emptySet();
+        }
         List<GrantedAuthority> grantedAuthorities = permissions.stream().map(GrantedAuthorityImpl::new).collect(Collectors.toList());
         return new JwtUserDetails(user.getName(), user.getPassword(), user.getSalt(), grantedAuthorities);
     }
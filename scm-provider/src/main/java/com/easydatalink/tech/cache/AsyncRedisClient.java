@@ -0,0 +1,449 @@
+package com.easydatalink.tech.cache;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import com.easydatalink.tech.utils.StringHelper;
+
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.KeyValue;
+import io.lettuce.core.RedisCommandExecutionException;
+import io.lettuce.core.RedisCommandTimeoutException;
+import io.lettuce.core.RedisConnectionException;
+import io.lettuce.core.RedisException;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.cluster.ClusterClientOptions;
+import io.lettuce.core.cluster.RedisClusterClient;
+import io.lettuce.core.cluster.api.StatefulRedisClusterConnection;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.codec.StringCodec;
+import io.lettuce.core.resource.ClientResources;
+import io.lettuce.core.resource.DefaultClientResources;
+
+/**
+ * 非阻塞redis客户端(Lettuce)，redis.server.client=async 时启用
+ * <p>
+ * 所有命令立即返回{@link CompletableFuture}，不占用调用线程；单机/集群均只维持少量多路复用的长连接，
+ * 连接数不再随并发增长。与{@link RedisClient}共用redis.server.*配置(单机模式同样使用第2个db)，
+ * 同样经由{@link RedisFailurePolicy}熔断，连接失败不重试(Lettuce自动重连)，失败以{@link RedisUnavailableException}结束future。
+ * Lettuce 5.0的RedisURI超时只作用于建连和同步API，异步future本身没有超时，因此断线期间直接拒绝命令(不排队等重连)，
+ * 并在redis.server.timeout后主动以超时结束尚未返回的future，使熔断能感知到故障。
+ * 需要Mono时用 Mono.fromFuture 包装即可。
+ */
+@Repository("AsyncRedisClient")
+@ConditionalOnProperty(name = "redis.server.client", havingValue = "async")
+public class AsyncRedisClient {
+
+	private Log log = LogFactory.getLog(AsyncRedisClient.class);
+
+	@Value("${redis.server.servers}")
+	private String servers;
+	@Value("${redis.server.iscluster}")
+	private boolean isCluster;
+	@Value("${redis.server.timeout}")
+	private Integer timeout;
+
+	@Autowired
+	private RedisFailurePolicy failurePolicy;
+
+	private ClientResources resources;
+
+	// 异步命令超时计时
+	private ScheduledThreadPoolExecutor timeoutScheduler;
+
+	private io.lettuce.core.RedisClient client;
+
+	private RedisClusterClient clusterClient;
+
+	private RedisClusterAsyncCommands<String, String> commands;
+
+	private RedisClusterAsyncCommands<byte[], byte[]> binaryCommands;
+
+	@PostConstruct
+	public void init() {
+		if (StringHelper.isNull(servers)) {
+			throw new IllegalArgumentException("redis servers is null ,check config setting");
+		}
+		if (timeout == null || timeout <= 0)
+			timeout = 10000;
+		resources = DefaultClientResources.create();
+		timeoutScheduler = new ScheduledThreadPoolExecutor(1, r -> {
+			Thread t = new Thread(r, "async-redis-timeout");
+			t.setDaemon(true);
+			return t;
+		});
+		timeoutScheduler.setRemoveOnCancelPolicy(true);
+		List<RedisURI> uris = new ArrayList<RedisURI>();
+		for (String e : StringHelper.splitStr(servers, ",")) {
+			String[] temp = StringHelper.splitStr(e, ":");
+			RedisURI uri = RedisURI.create(temp[0], Integer.parseInt(temp[1]));
+			uri.setTimeout(Duration.ofMillis(timeout));
+			uris.add(uri);
+		}
+
+		if (isCluster) {
+			clusterClient = RedisClusterClient.create(resources, uris);
+			ClusterClientOptions.Builder options = ClusterClientOptions.builder();
+			options.disconnectedBehavior(ClientOptions.DisconnectedBehavior.REJECT_COMMANDS);
+			clusterClient.setOptions(options.build());
+			StatefulRedisClusterConnection<String, String> connection = clusterClient.connect(StringCodec.UTF8);
+			StatefulRedisClusterConnection<byte[], byte[]> binaryConnection = clusterClient.connect(ByteArrayCodec.INSTANCE);
+			commands = connection.async();
+			binaryCommands = binaryConnection.async();
+		} else {
+			RedisURI uri = uris.get(0);
+			//使用redis第2个db，与RedisClient一致
+			uri.setDatabase(1);
+			client = io.lettuce.core.RedisClient.create(resources, uri);
+			client.setOptions(ClientOptions.builder()
+					.disconnectedBehavior(ClientOptions.DisconnectedBehavior.REJECT_COMMANDS).build());
+			StatefulRedisConnection<String, String> connection = client.connect(StringCodec.UTF8);
+			StatefulRedisConnection<byte[], byte[]> binaryConnection = client.connect(ByteArrayCodec.INSTANCE);
+			commands = connection.async();
+			binaryCommands = binaryConnection.async();
+		}
+		log.info("--------> Async redis init success <---------");
+	}
+
+	@PreDestroy
+	public void destroy() {
+		if (client != null)
+			client.shutdown();
+		if (clusterClient != null)
+			clusterClient.shutdown();
+		if (resources != null)
+			resources.shutdown();
+		if (timeoutScheduler != null)
+			timeoutScheduler.shutdownNow();
+	}
+
+	/**
+	 * 按失败策略执行一次异步命令：熔断打开时直接以RedisUnavailableException结束，连接失败及超时计入熔断。
+	 * 超时后redis迟到的响应不再改变结果，也不重复计入失败策略
+	 */
+	private <K, R> CompletableFuture<R> execute(String command, RedisClusterAsyncCommands<K, K> target,
+			Function<RedisClusterAsyncCommands<K, K>, CompletionStage<R>> action) {
+		CompletableFuture<R> result = new CompletableFuture<R>();
+		if (!failurePolicy.allowRequest()) {
+			result.completeExceptionally(new RedisUnavailableException("redis circuit open, fail fast: " + command));
+			return result;
+		}
+		CompletionStage<R> stage;
+		try {
+			stage = action.apply(target);
+		} catch (RuntimeException e) {
+			stage = failed(e);
+		}
+		ScheduledFuture<?> timer = timeoutScheduler.schedule(() -> {
+			RedisCommandTimeoutException e = new RedisCommandTimeoutException(
+					"command timed out after " + timeout + "ms: " + command);
+			if (result.completeExceptionally(new RedisUnavailableException("redis command failed: " + command, e))) {
+				failurePolicy.onFailure(e);
+				log.warn("redis command failed: " + command + ", " + e.getMessage());
+			}
+		}, timeout, TimeUnit.MILLISECONDS);
+		stage.whenComplete((value, error) -> {
+			timer.cancel(false);
+			if (error == null) {
+				if (result.complete(value))
+					failurePolicy.onSuccess();
+				return;
+			}
+			Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+			if (isConnectionFailure(cause)) {
+				if (result.completeExceptionally(new RedisUnavailableException("redis command failed: " + command, cause))) {
+					failurePolicy.onFailure(cause instanceof Exception ? (Exception) cause : new RedisException(cause));
+					log.warn("redis command failed: " + command + ", " + cause.getMessage());
+				}
+			} else if (result.completeExceptionally(cause)) {
+				// redis有响应，只是命令本身出错
+				failurePolicy.onSuccess();
+			}
+		});
+		return result;
+	}
+
+	private <R> CompletableFuture<R> execute(String command,
+			Function<RedisClusterAsyncCommands<String, String>, CompletionStage<R>> action) {
+		return execute(command, commands, action);
+	}
+
+	private <R> CompletableFuture<R> executeBinary(String command,
+			Function<RedisClusterAsyncCommands<byte[], byte[]>, CompletionStage<R>> action) {
+		return execute(command, binaryCommands, action);
+	}
+
+	/**
+	 * 连接层面的失败；断线时被拒绝的命令以普通RedisException结束，命令本身的错误则是RedisCommandExecutionException
+	 */
+	private static boolean isConnectionFailure(Throwable e) {
+		return e instanceof RedisConnectionException || e instanceof RedisCommandTimeoutException
+				|| e instanceof IOException
+				|| (e instanceof RedisException && !(e instanceof RedisCommandExecutionException));
+	}
+
+	private static <R> CompletionStage<R> failed(Throwable e) {
+		CompletableFuture<R> future = new CompletableFuture<R>();
+		future.completeExceptionally(e);
+		return future;
+	}
+
+	private static byte[] encode(String key) {
+		return key.getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * 获取指定key的内容
+	 *
+	 * @param key
+	 * @return
+	 */
+	public CompletableFuture<String> get(final String key) {
+		return execute("get", c -> c.get(key));
+	}
+
+	/**
+	 * 设置键值
+	 *
+	 * @param key 键名
+	 * @param value 键值
+	 * @return
+	 */
+	public CompletableFuture<String> set(final String key, final String value) {
+		return execute("set", c -> c.set(key, value));
+	}
+
+	/**
+	 * 设置键值并设置过期时间
+	 * @param key 键名
+	 * @param value 键值
+	 * @param second  过期时间
+	 * @return
+	 */
+	public CompletableFuture<String> set(final String key, final String value, final int second) {
+		return execute("setex", c -> c.setex(key, second, value));
+	}
+
+	/**
+	 * 如果key不存在则设置并同时设置过期时间(SET NX EX)
+	 * @param key 键名
+	 * @param value 键值
+	 * @param second 过期时间
+	 * @return 设置成功返回true
+	 */
+	public CompletableFuture<Boolean> setIfNotExist(final String key, final String value, final int second) {
+		return execute("setnx", c -> c.set(key, value, SetArgs.Builder.nx().ex(second)).thenApply(r -> "OK".equals(r)));
+	}
+
+	/**
+	 * 以字节形式获取指定key的内容，供CacheCodec解码
+	 *
+	 * @param key
+	 * @return
+	 */
+	public CompletableFuture<byte[]> getBytes(final String key) {
+		return executeBinary("get", c -> c.get(encode(key)));
+	}
+
+	/**
+	 * 以字节形式写入指定key
+	 *
+	 * @param key
+	 * @param value
+	 * @param second 过期时间，0为永久，单位秒
+	 * @return
+	 */
+	public CompletableFuture<String> setBytes(final String key, final byte[] value, final int second) {
+		if (second <= 0)
+			return executeBinary("set", c -> c.set(encode(key), value));
+		return executeBinary("setex", c -> c.setex(encode(key), second, value));
+	}
+
+	/**
+	 * 批量获取多个key的内容，集群模式由Lettuce按槽位拆分并行执行<br/>
+	 * 返回结果与keys顺序一致，不存在的key对应位置为null
+	 *
+	 * @param keys
+	 * @return
+	 */
+	public CompletableFuture<List<String>> mget(final List<String> keys) {
+		if (keys == null || keys.isEmpty())
+			return CompletableFuture.completedFuture(new ArrayList<String>());
+		return execute("mget", c -> c.mget(keys.toArray(new String[keys.size()])).thenApply(AsyncRedisClient::values));
+	}
+
+	/**
+	 * 以字节形式批量获取多个key的内容，返回结果与keys顺序一致，不存在的key对应位置为null
+	 *
+	 * @param keys
+	 * @return
+	 */
+	public CompletableFuture<List<byte[]>> mgetBytes(final List<String> keys) {
+		if (keys == null || keys.isEmpty())
+			return CompletableFuture.completedFuture(new ArrayList<byte[]>());
+		byte[][] ks = new byte[keys.size()][];
+		for (int i = 0; i < ks.length; i++) {
+			ks[i] = encode(keys.get(i));
+		}
+		return executeBinary("mget", c -> c.mget(ks).thenApply(AsyncRedisClient::values));
+	}
+
+	/**
+	 * 批量写入多个KEY VALUE，命令在同一连接上流水线发送
+	 *
+	 * @param keyValues
+	 * @param second 过期时间，0为永久，单位秒
+	 * @return
+	 */
+	public CompletableFuture<Void> msetBytes(Map<String, byte[]> keyValues, final int second) {
+		if (keyValues == null || keyValues.isEmpty())
+			return CompletableFuture.completedFuture(null);
+		List<CompletableFuture<String>> futures = new ArrayList<CompletableFuture<String>>(keyValues.size());
+		for (Map.Entry<String, byte[]> e : keyValues.entrySet()) {
+			futures.add(setBytes(e.getKey(), e.getValue(), second));
+		}
+		return CompletableFuture.allOf(futures.toArray(new CompletableFuture[futures.size()]));
+	}
+
+	/**
+	 * 删除给定的一个或多个 key
+	 *
+	 * @param keys
+	 * @return 被删除 key 的数量
+	 */
+	public CompletableFuture<Long> del(final String... keys) {
+		if (keys == null || keys.length == 0)
+			return CompletableFuture.completedFuture(0l);
+		return execute("del", c -> c.del(keys));
+	}
+
+	/**
+	 * 判断给定的键值是否存在
+	 *
+	 * @param key
+	 * @return
+	 */
+	public CompletableFuture<Boolean> exist(final String key) {
+		return execute("exists", c -> c.exists(key).thenApply(n -> n != null && n > 0));
+	}
+
+	/**
+	 * 将指定的key设置过期时间
+	 *
+	 * @param key 指定的key
+	 * @param seconds 过期时间
+	 * @return
+	 */
+	public CompletableFuture<Boolean> expire(final String key, final int seconds) {
+		return execute("expire", c -> c.expire(key, seconds));
+	}
+
+	/**
+	 * 查看指定key的剩余时间
+	 *
+	 * @param key
+	 * @return 当 key 不存在时，返回 -2 。当 key 存在但没有设置剩余生存时间时，返回 -1 。否则，以秒为单位，返回 key 的剩余生存时间。
+	 */
+	public CompletableFuture<Long> ttl(final String key) {
+		return execute("ttl", c -> c.ttl(key));
+	}
+
+	/**
+	 * 将指定的key+1，如果该key不存在，则先初始化为0，然后再进行自增操作
+	 *
+	 * @param key
+	 * @return 自增后的值
+	 */
+	public CompletableFuture<Long> incr(final String key) {
+		return execute("incr", c -> c.incr(key));
+	}
+
+	/**
+	 * 在哈希中获取指定key的内容
+	 *
+	 * @param key
+	 * @param field
+	 * @return
+	 */
+	public CompletableFuture<String> hget(final String key, final String field) {
+		return execute("hget", c -> c.hget(key, field));
+	}
+
+	/**
+	 * 在哈希表中添加内容
+	 *
+	 * @param key
+	 * @param field
+	 * @param value
+	 * @return
+	 */
+	public CompletableFuture<Boolean> hset(final String key, final String field, final String value) {
+		return execute("hset", c -> c.hset(key, field, value));
+	}
+
+	/**
+	 * 从队尾加入元素
+	 *
+	 * @param key
+	 * @param vals
+	 * @return
+	 */
+	public CompletableFuture<Long> rpush(final String key, final String... vals) {
+		return execute("rpush", c -> c.rpush(key, vals));
+	}
+
+	/**
+	 * 返回列表 key 中指定区间内的元素
+	 *
+	 * @param key
+	 * @param start
+	 * @param end
+	 * @return
+	 */
+	public CompletableFuture<List<String>> lrange(final String key, final long start, final long end) {
+		return execute("lrange", c -> c.lrange(key, start, end));
+	}
+
+	/**
+	 * 向频道发布消息
+	 *
+	 * @param channel
+	 * @param message
+	 * @return 收到消息的订阅者数量
+	 */
+	public CompletableFuture<Long> publish(final String channel, final String message) {
+		return execute("publish", c -> c.publish(channel, message));
+	}
+
+	private static <K, V> List<V> values(List<KeyValue<K, V>> kvs) {
+		List<V> values = new ArrayList<V>(kvs.size());
+		for (KeyValue<K, V> kv : kvs) {
+			values.add(kv.hasValue() ? kv.getValue() : null);
+		}
+		return values;
+	}
+}
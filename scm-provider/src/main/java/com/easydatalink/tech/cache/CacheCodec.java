@@ -0,0 +1,24 @@
+package com.easydatalink.tech.cache;
+
+/**
+ * CacheManager的值编解码SPI，实现类注册为名为 xxxCacheCodec 的bean，通过 cache.codec=xxx 选用
+ */
+public interface CacheCodec {
+
+	/**
+	 * 对象编码为写入redis的字节
+	 *
+	 * @param value
+	 * @return byte[]
+	 */
+	byte[] encode(Object value);
+
+	/**
+	 * redis中读出的字节解码为对象
+	 *
+	 * @param data
+	 * @param cls
+	 * @return T
+	 */
+	<T> T decode(byte[] data, Class<T> cls);
+}
@@ -4,16 +4,33 @@
 package com.easydatalink.tech.cache;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
+import javax.annotation.PostConstruct;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.alibaba.fastjson.JSONObject;
 import com.easydatalink.tech.utils.Log4jManager;
 import com.easydatalink.tech.utils.StringHelper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 
 /**
  * @author: liubin
@@ -22,22 +39,298 @@ import com.easydatalink.tech.utils.StringHelper;
 @Service
 public class CacheManager<T> {
 
+	private Log log = LogFactory.getLog(CacheManager.class);
+
 	@Autowired
 	private RedisClient redisClient;
 
+	@Autowired
+	private NearCache nearCache;
+
+	// redis.server.client=async 时存在
+	@Autowired(required = false)
+	private AsyncRedisClient asyncRedisClient;
+
+	// redis不可用时getCache按未命中处理，调用方回源数据库；set/mset/deleteCache记录日志后忽略(与原先吞掉异常的行为一致)
+	@Value("${redis.server.degradeToMiss:true}")
+	private boolean degradeToMiss;
+
+	// KEY VALUE缓存的编解码方式，对应名为 xxxCacheCodec 的bean：json(默认，兼容已有数据)、protostuff
+	@Value("${cache.codec:json}")
+	private String codecName;
+
+	@Autowired
+	private Map<String, CacheCodec> codecs;
+
+	private CacheCodec codec;
+
+	private static final String LOCK_SUFFIX = ":loading";
+
+	// 提前刷新未抢到锁、未执行回源
+	private static final Object SKIPPED = new Object();
+
+	// getOrLoad跨实例加载锁的存活期，应大于一次回源的耗时
+	@Value("${cache.load.lockSeconds:10}")
+	private int lockSeconds;
+	// 未抢到加载锁时等待其他实例回填的最长时间，超时后自行回源
+	@Value("${cache.load.lockWaitMillis:2000}")
+	private long lockWaitMillis;
+	@Value("${cache.load.lockPollMillis:50}")
+	private long lockPollMillis;
+	// 提前刷新系数，越大越早刷新，0为关闭提前刷新
+	@Value("${cache.load.earlyRefreshBeta:1.0}")
+	private double earlyRefreshBeta;
+	// 尚未观测到回源耗时的key按此耗时估算
+	@Value("${cache.load.defaultLoadMillis:100}")
+	private long defaultLoadMillis;
+
+	// 本实例正在进行的回源，同一key的并发未命中共享一次加载
+	private final ConcurrentMap<String, CompletableFuture<Object>> loading = new ConcurrentHashMap<String, CompletableFuture<Object>>();
+
+	// 各key最近一次回源耗时(毫秒)，用于提前刷新
+	private final Cache<String, Long> loadMillis = Caffeine.newBuilder().maximumSize(10000).build();
+
+	@PostConstruct
+	public void init() {
+		codec = codecs.get(codecName + "CacheCodec");
+		if (codec == null)
+			throw new IllegalArgumentException("unknown cache.codec: " + codecName + ", available: " + codecs.keySet());
+		log.info("--------> Cache codec: " + codecName + " <---------");
+	}
+
 	/**
-	 * 获取KEY VALUE形式的缓存对象，VALUE=JSON形式转为对象
+	 * 获取KEY VALUE形式的缓存对象，VALUE经CacheCodec解码为对象，redis不可用且开启degradeToMiss时返回null
 	 * 
 	 * @param cacheKey
 	 * @param cls
 	 * @return T
 	 */
 	public T getCache(String cacheKey, Class<T> cls) {
-		String json = redisClient.get(cacheKey);
-		if (StringHelper.isNull(json))
+		T cached = nearCache.get(cacheKey, cls);
+		if (cached != null)
+			return cached;
+		long stamp = nearCache.stamp();
+		byte[] data;
+		try {
+			data = redisClient.getBytes(cacheKey);
+		} catch (RedisUnavailableException e) {
+			if (!degradeToMiss)
+				throw e;
 			return null;
-		JSONObject jo = JSONObject.parseObject(json);
-		return (T) JSONObject.toJavaObject(jo, cls);
+		}
+		T t = decode(cacheKey, data, cls);
+		nearCache.put(cacheKey, t, stamp);
+		return t;
+	}
+
+	/**
+	 * 异步获取KEY VALUE形式的缓存对象，redis.server.client=async 时不阻塞调用线程，否则同步执行后返回已完成的future<br/>
+	 * 适合一次发起多个缓存读取后再统一等待
+	 *
+	 * @param cacheKey
+	 * @param cls
+	 * @return CompletableFuture<T>
+	 */
+	public CompletableFuture<T> getCacheAsync(String cacheKey, Class<T> cls) {
+		if (asyncRedisClient == null)
+			return CompletableFuture.completedFuture(getCache(cacheKey, cls));
+		T cached = nearCache.get(cacheKey, cls);
+		if (cached != null)
+			return CompletableFuture.completedFuture(cached);
+		long stamp = nearCache.stamp();
+		return asyncRedisClient.getBytes(cacheKey).handle((data, error) -> {
+			if (error != null)
+				return degrade(error);
+			T t = decode(cacheKey, data, cls);
+			nearCache.put(cacheKey, t, stamp);
+			return t;
+		});
+	}
+
+	/**
+	 * 异步批量获取KEY VALUE形式的缓存对象，返回结果与cacheKeys顺序一致，未命中的位置为null
+	 *
+	 * @param cacheKeys
+	 * @param cls
+	 * @return CompletableFuture<List<T>>
+	 */
+	public CompletableFuture<List<T>> mgetCacheAsync(List<String> cacheKeys, Class<T> cls) {
+		if (asyncRedisClient == null)
+			return CompletableFuture.completedFuture(mgetCache(cacheKeys, cls));
+		long stamp = nearCache.stamp();
+		return asyncRedisClient.mgetBytes(cacheKeys).handle((datas, error) -> {
+			List<T> ts = new ArrayList<T>(Collections.<T> nCopies(cacheKeys.size(), null));
+			if (error != null) {
+				degrade(error);
+				return ts;
+			}
+			for (int i = 0; i < datas.size(); i++) {
+				T t = decode(cacheKeys.get(i), datas.get(i), cls);
+				ts.set(i, t);
+				nearCache.put(cacheKeys.get(i), t, stamp);
+			}
+			return ts;
+		});
+	}
+
+	/**
+	 * 异步读取失败：redis不可用且开启degradeToMiss时按未命中处理，否则原样抛出
+	 */
+	private T degrade(Throwable error) {
+		Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+		if (cause instanceof RedisUnavailableException && degradeToMiss)
+			return null;
+		throw cause instanceof RuntimeException ? (RuntimeException) cause : new CompletionException(cause);
+	}
+
+	/**
+	 * 读穿缓存：命中直接返回，未命中时由loader回源并写入缓存<br/>
+	 * 本实例内同一key的并发未命中只调用一次loader；跨实例通过redis短期锁(SET NX EX)协调，
+	 * 未抢到锁的实例等待回填，超时后自行回源。临近过期时按概率提前刷新(XFetch)，回源耗时越长、越接近过期越容易触发，
+	 * 提前刷新只由抢到锁的一个请求执行，其余请求继续返回旧值。loader返回null时不写缓存
+	 *
+	 * @param cacheKey
+	 * @param cls
+	 * @param cacheLifeSeconds 存活期，0为永久(永久缓存不提前刷新)，单位秒
+	 * @param loader 回源逻辑，通常是查询数据库
+	 * @return T
+	 */
+	public T getOrLoad(String cacheKey, Class<T> cls, Integer cacheLifeSeconds, Supplier<T> loader) {
+		T cached = nearCache.get(cacheKey, cls);
+		if (cached != null)
+			return cached;
+		long stamp = nearCache.stamp();
+		RedisClient.ExpiringBytes eb;
+		try {
+			eb = redisClient.getBytesWithPttl(cacheKey);
+		} catch (RedisUnavailableException e) {
+			if (!degradeToMiss)
+				throw e;
+			// redis不可用时仍在本实例内合并回源，保护数据库
+			return load(cacheKey, cls, cacheLifeSeconds, loader, true);
+		}
+		T t = decode(cacheKey, eb.value, cls);
+		if (t == null)
+			return load(cacheKey, cls, cacheLifeSeconds, loader, true);
+		if (shouldRefreshEarly(cacheKey, eb.pttl)) {
+			T refreshed = load(cacheKey, cls, cacheLifeSeconds, loader, false);
+			if (refreshed != null)
+				return refreshed;
+		}
+		nearCache.put(cacheKey, t, stamp);
+		return t;
+	}
+
+	/**
+	 * XFetch：回源耗时 * beta * -ln(random) 超过剩余存活期时提前刷新
+	 */
+	private boolean shouldRefreshEarly(String cacheKey, long pttl) {
+		if (earlyRefreshBeta <= 0 || pttl <= 0)
+			return false;
+		Long millis = loadMillis.getIfPresent(cacheKey);
+		double delta = millis == null ? defaultLoadMillis : millis;
+		return delta * earlyRefreshBeta * -Math.log(1 - ThreadLocalRandom.current().nextDouble()) >= pttl;
+	}
+
+	/**
+	 * 本实例内合并同一key的并发回源
+	 *
+	 * @param waitForLock 未抢到跨实例锁时是否等待并最终自行回源，false时直接返回null(提前刷新场景)
+	 */
+	@SuppressWarnings("unchecked")
+	private T load(String cacheKey, Class<T> cls, Integer cacheLifeSeconds, Supplier<T> loader, boolean waitForLock) {
+		CompletableFuture<Object> future = new CompletableFuture<Object>();
+		CompletableFuture<Object> running = loading.putIfAbsent(cacheKey, future);
+		if (running != null) {
+			Object result;
+			try {
+				result = running.join();
+			} catch (CompletionException e) {
+				throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+			}
+			if (result != SKIPPED)
+				return (T) result;
+			return waitForLock ? load(cacheKey, cls, cacheLifeSeconds, loader, true) : null;
+		}
+		try {
+			Object result = loadWithLock(cacheKey, cls, cacheLifeSeconds, loader, waitForLock);
+			future.complete(result);
+			return result == SKIPPED ? null : (T) result;
+		} catch (RuntimeException | Error e) {
+			future.completeExceptionally(e);
+			throw e;
+		} finally {
+			loading.remove(cacheKey, future);
+		}
+	}
+
+	private Object loadWithLock(String cacheKey, Class<T> cls, Integer cacheLifeSeconds, Supplier<T> loader,
+			boolean waitForLock) {
+		String lockKey = cacheKey + LOCK_SUFFIX;
+		String token = UUID.randomUUID().toString();
+		boolean locked;
+		try {
+			locked = redisClient.setIfNotExist(lockKey, token, lockSeconds);
+		} catch (RedisUnavailableException e) {
+			// redis不可用，无法跨实例协调，直接回源
+			return loadAndSet(cacheKey, cacheLifeSeconds, loader);
+		}
+		if (!locked) {
+			if (!waitForLock)
+				return SKIPPED;
+			T t = awaitOtherLoader(cacheKey, cls);
+			if (t != null)
+				return t;
+			log.warn("cache load lock wait timeout, load directly: " + cacheKey);
+			return loadAndSet(cacheKey, cacheLifeSeconds, loader);
+		}
+		try {
+			return loadAndSet(cacheKey, cacheLifeSeconds, loader);
+		} finally {
+			try {
+				redisClient.delIfEquals(lockKey, token);
+			} catch (RedisUnavailableException e) {
+				// 锁会按lockSeconds自动过期
+			}
+		}
+	}
+
+	/**
+	 * 等待持有锁的实例回填缓存
+	 */
+	private T awaitOtherLoader(String cacheKey, Class<T> cls) {
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lockWaitMillis);
+		while (System.nanoTime() < deadline) {
+			try {
+				Thread.sleep(lockPollMillis);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return null;
+			}
+			try {
+				T t = decode(cacheKey, redisClient.getBytes(cacheKey), cls);
+				if (t != null)
+					return t;
+			} catch (RedisUnavailableException e) {
+				return null;
+			}
+		}
+		return null;
+	}
+
+	private T loadAndSet(String cacheKey, Integer cacheLifeSeconds, Supplier<T> loader) {
+		long start = System.nanoTime();
+		T t = loader.get();
+		loadMillis.put(cacheKey, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+		if (t == null)
+			return null;
+		try {
+			set(cacheKey, t, cacheLifeSeconds);
+		} catch (RedisUnavailableException e) {
+			if (!degradeToMiss)
+				throw e;
+		}
+		return t;
 	}
 
 	/**
@@ -46,11 +339,106 @@ public class CacheManager<T> {
 	 * @param cacheKey
 	 */
 	public void deleteCache(String cacheKey) {
-		redisClient.del(cacheKey);
+		try {
+			redisClient.del(cacheKey);
+		} catch (RedisUnavailableException e) {
+			degradeWrite("del " + cacheKey, e);
+		} finally {
+			nearCache.invalidate(cacheKey);
+		}
+	}
+
+	/**
+	 * 批量删除指定KEY的缓存，一次往返完成
+	 * 
+	 * @param cacheKeys
+	 */
+	public void deleteCache(String... cacheKeys) {
+		try {
+			redisClient.del(cacheKeys);
+		} catch (RedisUnavailableException e) {
+			degradeWrite("del " + cacheKeys.length + " keys", e);
+		} finally {
+			nearCache.invalidate(cacheKeys);
+		}
+	}
+
+	/**
+	 * 批量获取KEY VALUE形式的缓存对象，返回结果与cacheKeys顺序一致，未命中的位置为null
+	 * 
+	 * @param cacheKeys
+	 * @param cls
+	 * @return List<T>
+	 */
+	public List<T> mgetCache(List<String> cacheKeys, Class<T> cls) {
+		List<T> ts = new ArrayList<T>(Collections.<T> nCopies(cacheKeys.size(), null));
+		List<Integer> missIndexes = new ArrayList<Integer>();
+		List<String> missKeys = new ArrayList<String>();
+		for (int i = 0; i < cacheKeys.size(); i++) {
+			T cached = nearCache.get(cacheKeys.get(i), cls);
+			if (cached != null) {
+				ts.set(i, cached);
+			} else {
+				missIndexes.add(i);
+				missKeys.add(cacheKeys.get(i));
+			}
+		}
+		if (missKeys.isEmpty())
+			return ts;
+		long stamp = nearCache.stamp();
+		List<byte[]> datas;
+		try {
+			datas = redisClient.mgetBytes(missKeys);
+		} catch (RedisUnavailableException e) {
+			if (!degradeToMiss)
+				throw e;
+			return ts;
+		}
+		for (int i = 0; i < datas.size(); i++) {
+			T t = decode(missKeys.get(i), datas.get(i), cls);
+			if (t == null)
+				continue;
+			ts.set(missIndexes.get(i), t);
+			nearCache.put(missKeys.get(i), t, stamp);
+		}
+		return ts;
 	}
 
 	/**
-	 * 默认写入KEY VALUE缓存，存活期永久,VALUE=JSON
+	 * 批量写入缓存，存活期永久
+	 * 
+	 * @param entities
+	 */
+	public void mset(Map<String, T> entities) {
+		mset(entities, 0);
+	}
+
+	/**
+	 * 批量写入缓存，可以指定存活期,0为永久,单位秒
+	 * 
+	 * @param entities
+	 * @param cacheLifeSeconds
+	 */
+	public void mset(Map<String, T> entities, Integer cacheLifeSeconds) {
+		if (entities == null || entities.isEmpty())
+			return;
+		Map<String, byte[]> datas = new LinkedHashMap<String, byte[]>(entities.size());
+		for (Map.Entry<String, T> e : entities.entrySet()) {
+			if (e.getValue() == null)
+				continue;
+			datas.put(e.getKey(), codec.encode(e.getValue()));
+		}
+		try {
+			redisClient.msetBytes(datas, cacheLifeSeconds);
+		} catch (RedisUnavailableException e) {
+			degradeWrite("mset " + datas.size() + " keys", e);
+		} finally {
+			nearCache.invalidate(entities.keySet().toArray(new String[0]));
+		}
+	}
+
+	/**
+	 * 默认写入KEY VALUE缓存，存活期永久
 	 * 
 	 * @param entity
 	 * @param cacheKey
@@ -60,20 +448,45 @@ public class CacheManager<T> {
 	}
 
 	/**
-	 * 写入缓存，可以指定存活期,0为永久,单位秒,VALUE=JSON
+	 * 写入缓存，可以指定存活期,0为永久,单位秒
 	 * 
 	 * @param entity
 	 * @param cacheKey
 	 * @param cacheLifeSeconds
 	 */
 	public void set(String cacheKey, T entity, Integer cacheLifeSeconds) {
-		Object json = JSONObject.toJSON(entity);
-		if (json == null || StringHelper.isNull(json.toString()))
+		if (entity == null)
 			return;
-		if (cacheLifeSeconds <= 0)
-			redisClient.set(cacheKey, json.toString());
-		else
-			redisClient.set(cacheKey, json.toString(), cacheLifeSeconds);
+		try {
+			redisClient.setBytes(cacheKey, codec.encode(entity), cacheLifeSeconds);
+		} catch (RedisUnavailableException e) {
+			degradeWrite("set " + cacheKey, e);
+		} finally {
+			nearCache.invalidate(cacheKey);
+		}
+	}
+
+	/**
+	 * 写/删除失败：开启degradeToMiss时记录日志后忽略(缓存仍可能保留旧值直到过期)，否则原样抛出
+	 */
+	private void degradeWrite(String command, RedisUnavailableException e) {
+		if (!degradeToMiss)
+			throw e;
+		log.warn("redis unavailable, cache write skipped: " + command + ", " + e.getMessage());
+	}
+
+	/**
+	 * 解码缓存内容，解码失败(如切换codec后读到旧格式数据)按未命中处理
+	 */
+	private T decode(String cacheKey, byte[] data, Class<T> cls) {
+		if (data == null || data.length == 0)
+			return null;
+		try {
+			return codec.decode(data, cls);
+		} catch (RuntimeException e) {
+			log.warn("cache decode failed, treat as miss: " + cacheKey + ", " + e.getMessage());
+			return null;
+		}
 	}
 
 	public boolean zexists(String key, String member) {
@@ -187,8 +600,7 @@ public class CacheManager<T> {
 			return null;
 		}
 		for(int i=0; i<os.size(); i++) {
-			JSONObject jo = JSONObject.parseObject(os.get(i));
-			ts.add((T) JSONObject.parseObject(jo.toJSONString(), cls));
+			ts.add(JSONObject.parseObject(os.get(i), cls));
 		}
 		return ts;
 	}
@@ -208,7 +620,9 @@ public class CacheManager<T> {
 	 * @return
 	 */
 	public String set(String key, String value, int second){
-		return redisClient.set(key, value, second);
+		String res = redisClient.set(key, value, second);
+		nearCache.invalidate(key);
+		return res;
 	}
 	
 	/**
@@ -219,6 +633,8 @@ public class CacheManager<T> {
 	 * @return
 	 */
 	public String setString(String key, String value){
-		return redisClient.set(key, value);
+		String res = redisClient.set(key, value);
+		nearCache.invalidate(key);
+		return res;
 	}
 }
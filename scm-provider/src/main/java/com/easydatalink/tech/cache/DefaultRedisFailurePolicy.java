@@ -0,0 +1,75 @@
+package com.easydatalink.tech.cache;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 默认失败策略：有限次数的抖动退避重试 + 连续失败熔断<br/>
+ * 连续失败达到阈值后熔断打开，期间所有调用快速失败；每个熔断窗口结束时放行一个探测请求，成功则关闭熔断
+ */
+@Component
+public class DefaultRedisFailurePolicy implements RedisFailurePolicy {
+
+	private Log log = LogFactory.getLog(DefaultRedisFailurePolicy.class);
+
+	// 单次调用最多尝试次数(含第一次)
+	@Value("${redis.server.retry.maxAttempts:2}")
+	private int maxAttempts;
+	// 退避基数，第n次重试等待 backoffMillis * 2^(n-1)，带随机抖动
+	@Value("${redis.server.retry.backoffMillis:20}")
+	private long backoffMillis;
+	@Value("${redis.server.retry.maxBackoffMillis:200}")
+	private long maxBackoffMillis;
+	// 连续失败多少次后熔断
+	@Value("${redis.server.breaker.failureThreshold:5}")
+	private int failureThreshold;
+	// 熔断持续时间
+	@Value("${redis.server.breaker.openMillis:5000}")
+	private long openMillis;
+
+	private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+	// 熔断打开截止时间，0表示关闭
+	private final AtomicLong openUntil = new AtomicLong();
+
+	@Override
+	public boolean allowRequest() {
+		long until = openUntil.get();
+		if (until == 0)
+			return true;
+		long now = System.currentTimeMillis();
+		if (now < until)
+			return false;
+		// 半开：每个窗口只放行一个探测请求
+		return openUntil.compareAndSet(until, now + openMillis);
+	}
+
+	@Override
+	public long retryDelay(int attempt, Exception e) {
+		if (attempt >= maxAttempts)
+			return -1;
+		long exp = Math.min(maxBackoffMillis, backoffMillis << Math.min(attempt - 1, 20));
+		return ThreadLocalRandom.current().nextLong(exp / 2, exp + 1);
+	}
+
+	@Override
+	public void onSuccess() {
+		consecutiveFailures.set(0);
+		if (openUntil.getAndSet(0) != 0)
+			log.info("--------> Redis recovered, circuit closed <---------");
+	}
+
+	@Override
+	public void onFailure(Exception e) {
+		if (consecutiveFailures.incrementAndGet() < failureThreshold)
+			return;
+		if (openUntil.getAndSet(System.currentTimeMillis() + openMillis) == 0)
+			log.error("--------> Redis unavailable, circuit open for " + openMillis + "ms <---------", e);
+	}
+}
@@ -0,0 +1,22 @@
+package com.easydatalink.tech.cache;
+
+import org.springframework.stereotype.Component;
+
+import com.alibaba.fastjson.JSON;
+
+/**
+ * JSON编解码(UTF-8)，与历史上以JSON字符串写入的缓存值兼容
+ */
+@Component
+public class JsonCacheCodec implements CacheCodec {
+
+	@Override
+	public byte[] encode(Object value) {
+		return JSON.toJSONBytes(value);
+	}
+
+	@Override
+	public <T> T decode(byte[] data, Class<T> cls) {
+		return JSON.parseObject(data, cls);
+	}
+}
@@ -0,0 +1,205 @@
+package com.easydatalink.tech.cache;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.easydatalink.tech.utils.StringHelper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import redis.clients.jedis.JedisPubSub;
+
+/**
+ * CacheManager的进程内一级缓存(L1)，容量有界(W-TinyLFU淘汰)，按区域(key中第一个':'之前的部分)设置存活期<br/>
+ * 写入/删除缓存时通过redis pub/sub通知所有provider实例失效对应key；订阅断开期间可能丢失通知，重连后清空整个L1<br/>
+ * 注意：L1中的对象在调用方之间共享，取出后不要修改；所有实例的cache.near.enabled需保持一致
+ */
+@Component
+public class NearCache {
+
+	private Log log = LogFactory.getLog(NearCache.class);
+
+	private static final String KEY_SEPARATOR = "\n";
+
+	@Value("${cache.near.enabled:false}")
+	private boolean enabled;
+	@Value("${cache.near.maximumSize:10000}")
+	private long maximumSize;
+	// 默认存活期，单位秒
+	@Value("${cache.near.ttlSeconds:60}")
+	private long ttlSeconds;
+	// 区域存活期，格式 region:seconds,region:seconds
+	@Value("${cache.near.regionTtl:}")
+	private String regionTtl;
+	@Value("${cache.near.channel:scm:near-cache:invalidate}")
+	private String channel;
+
+	@Autowired
+	private RedisClient redisClient;
+
+	private Cache<String, Object> cache;
+
+	private final Map<String, Long> regionTtlNanos = new HashMap<String, Long>();
+
+	// 每次失效递增，用于丢弃失效发生前从redis读到的旧值
+	private final AtomicLong stamp = new AtomicLong();
+
+	private volatile boolean running;
+
+	private volatile JedisPubSub pubSub;
+
+	private Thread subscriber;
+
+	@PostConstruct
+	public void init() {
+		if (!enabled)
+			return;
+		if (!StringHelper.isNull(regionTtl)) {
+			for (String e : StringHelper.splitStr(regionTtl, ",")) {
+				String[] temp = StringHelper.splitStr(e, ":");
+				regionTtlNanos.put(temp[0].trim(), TimeUnit.SECONDS.toNanos(Long.parseLong(temp[1].trim())));
+			}
+		}
+		final long defaultTtlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+		cache = Caffeine.newBuilder().maximumSize(maximumSize).expireAfter(new Expiry<String, Object>() {
+			public long expireAfterCreate(String key, Object value, long currentTime) {
+				Long ttl = regionTtlNanos.get(region(key));
+				return ttl == null ? defaultTtlNanos : ttl;
+			}
+
+			public long expireAfterUpdate(String key, Object value, long currentTime, long currentDuration) {
+				return expireAfterCreate(key, value, currentTime);
+			}
+
+			public long expireAfterRead(String key, Object value, long currentTime, long currentDuration) {
+				return currentDuration;
+			}
+		}).build();
+
+		running = true;
+		subscriber = new Thread(new Runnable() {
+			public void run() {
+				subscribeLoop();
+			}
+		}, "near-cache-invalidator");
+		subscriber.setDaemon(true);
+		subscriber.start();
+		log.info("--------> Near cache init success, channel: " + channel + " <---------");
+	}
+
+	@PreDestroy
+	public void destroy() {
+		running = false;
+		JedisPubSub current = pubSub;
+		if (current != null && current.isSubscribed())
+			current.unsubscribe();
+		if (subscriber != null)
+			subscriber.interrupt();
+	}
+
+	/**
+	 * 读取L1，未命中或类型不符返回null
+	 *
+	 * @param key
+	 * @param cls
+	 * @return T
+	 */
+	public <T> T get(String key, Class<T> cls) {
+		if (!enabled)
+			return null;
+		Object value = cache.getIfPresent(key);
+		return cls.isInstance(value) ? cls.cast(value) : null;
+	}
+
+	/**
+	 * 读redis前取得的版本号，回填L1时传入
+	 *
+	 * @return long
+	 */
+	public long stamp() {
+		return stamp.get();
+	}
+
+	/**
+	 * 回填L1，若读取期间发生过失效则放弃回填
+	 *
+	 * @param key
+	 * @param value
+	 * @param readStamp
+	 */
+	public void put(String key, Object value, long readStamp) {
+		if (!enabled || value == null)
+			return;
+		cache.put(key, value);
+		if (stamp.get() != readStamp)
+			cache.invalidate(key);
+	}
+
+	/**
+	 * 失效本地L1并通知其他实例
+	 *
+	 * @param keys
+	 */
+	public void invalidate(String... keys) {
+		if (!enabled || keys == null || keys.length == 0)
+			return;
+		invalidateLocal(keys);
+		try {
+			redisClient.publish(channel, StringUtils.join(keys, KEY_SEPARATOR));
+		} catch (Exception e) {
+			log.warn("near cache invalidation publish failed: " + e.getMessage());
+		}
+	}
+
+	private void invalidateLocal(String... keys) {
+		stamp.incrementAndGet();
+		cache.invalidateAll(Arrays.asList(keys));
+	}
+
+	private void subscribeLoop() {
+		while (running) {
+			pubSub = new JedisPubSub() {
+				@Override
+				public void onMessage(String ch, String message) {
+					invalidateLocal(StringHelper.splitStr(message, KEY_SEPARATOR));
+				}
+			};
+			try {
+				redisClient.subscribe(pubSub, channel);
+			} catch (Exception e) {
+				if (running)
+					log.warn("near cache invalidation subscriber disconnected: " + e.getMessage());
+			}
+			// 断开期间可能丢失失效通知
+			stamp.incrementAndGet();
+			cache.invalidateAll();
+			if (!running)
+				break;
+			try {
+				Thread.sleep(1000);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+	}
+
+	private static String region(String key) {
+		int index = key.indexOf(':');
+		return index > 0 ? key.substring(0, index) : key;
+	}
+}
@@ -0,0 +1,85 @@
+package com.easydatalink.tech.cache;
+
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.util.SafeEncoder;
+
+/**
+ * 暴露槽位连接的JedisCluster，供RedisClient按节点分组执行pipeline批量命令
+ */
+@SuppressWarnings("unchecked")
+class PipelineJedisCluster extends JedisCluster {
+
+	// 槽位 -> 主节点host:port，按需由CLUSTER SLOTS加载，重定向后清空重新加载
+	private volatile String[] slotNodes;
+
+	PipelineJedisCluster(Set<HostAndPort> nodes, int timeout, int maxAttempts, GenericObjectPoolConfig config) {
+		super(nodes, timeout, maxAttempts, config);
+	}
+
+	/**
+	 * 获取负责指定槽位的节点连接，用完需close归还连接池
+	 *
+	 * @param slot
+	 * @return Jedis
+	 */
+	Jedis getConnectionFromSlot(int slot) {
+		return connectionHandler.getConnectionFromSlot(slot);
+	}
+
+	/**
+	 * 返回负责指定槽位的节点标识(host:port)，只用于把key按节点分组，查的是本地槽位表，不借连接
+	 *
+	 * @param slot
+	 * @return String
+	 */
+	String getNodeKey(int slot) {
+		String[] table = slotNodes;
+		if (table == null)
+			table = loadSlotNodes();
+		String node = table[slot];
+		// 槽位未分配(集群变更中)时各自成组，执行时由连接处理器定位
+		return node != null ? node : "slot:" + slot;
+	}
+
+	/**
+	 * 通过CLUSTER SLOTS建立槽位到节点的映射，任一节点可用即可
+	 */
+	private synchronized String[] loadSlotNodes() {
+		if (slotNodes != null)
+			return slotNodes;
+		String[] table = new String[JedisCluster.HASHSLOTS];
+		for (JedisPool pool : getClusterNodes().values()) {
+			try (Jedis jedis = pool.getResource()) {
+				for (Object entry : jedis.clusterSlots()) {
+					List<Object> range = (List<Object>) entry;
+					List<Object> master = (List<Object>) range.get(2);
+					String node = SafeEncoder.encode((byte[]) master.get(0)) + ":" + master.get(1);
+					for (int s = ((Long) range.get(0)).intValue(); s <= ((Long) range.get(1)).intValue(); s++)
+						table[s] = node;
+				}
+				slotNodes = table;
+				return table;
+			} catch (JedisConnectionException e) {
+				// 换下一个节点
+			}
+		}
+		throw new JedisConnectionException("no reachable cluster node to load slots");
+	}
+
+	/**
+	 * 收到MOVED/ASK后刷新本地槽位缓存
+	 */
+	void renewSlotCache() {
+		connectionHandler.renewSlotCache();
+		slotNodes = null;
+	}
+}
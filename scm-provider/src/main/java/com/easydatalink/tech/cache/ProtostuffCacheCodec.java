@@ -0,0 +1,43 @@
+package com.easydatalink.tech.cache;
+
+import org.springframework.stereotype.Component;
+
+import io.protostuff.LinkedBuffer;
+import io.protostuff.ProtostuffIOUtil;
+import io.protostuff.Schema;
+import io.protostuff.runtime.RuntimeSchema;
+
+/**
+ * 紧凑二进制编解码，schema按类缓存(RuntimeSchema内部缓存)<br/>
+ * 按字段顺序编码：实体只能在末尾追加字段，不能删除或调整已有字段顺序；值必须是普通bean，不能直接是集合/Map
+ */
+@Component
+public class ProtostuffCacheCodec implements CacheCodec {
+
+	private static final ThreadLocal<LinkedBuffer> BUFFER = new ThreadLocal<LinkedBuffer>() {
+		@Override
+		protected LinkedBuffer initialValue() {
+			return LinkedBuffer.allocate(LinkedBuffer.DEFAULT_BUFFER_SIZE);
+		}
+	};
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public byte[] encode(Object value) {
+		Schema<Object> schema = (Schema<Object>) RuntimeSchema.getSchema(value.getClass());
+		LinkedBuffer buffer = BUFFER.get();
+		try {
+			return ProtostuffIOUtil.toByteArray(value, schema, buffer);
+		} finally {
+			buffer.clear();
+		}
+	}
+
+	@Override
+	public <T> T decode(byte[] data, Class<T> cls) {
+		Schema<T> schema = RuntimeSchema.getSchema(cls);
+		T t = schema.newMessage();
+		ProtostuffIOUtil.mergeFrom(data, t, schema);
+		return t;
+	}
+}
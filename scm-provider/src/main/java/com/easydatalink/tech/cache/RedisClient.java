@@ -1,15 +1,22 @@
 package com.easydatalink.tech.cache;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Repository;
@@ -19,13 +26,24 @@ import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisCluster;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.JedisPubSub;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
 import redis.clients.jedis.SortingParams;
+import redis.clients.jedis.exceptions.JedisClusterMaxRedirectionsException;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.util.JedisClusterCRC16;
+import redis.clients.util.SafeEncoder;
 
-import com.easydatalink.tech.utils.Log4jManager;
 import com.easydatalink.tech.utils.StringHelper;
 
 /**
  * redis工具类
+ * <p>
+ * 所有命令经由{@link RedisFailurePolicy}执行：连接失败时按策略有限次退避重试，redis持续不可用时熔断快速失败，
+ * 最终失败抛出{@link RedisUnavailableException}，不会长时间占用调用线程。
  */
 @Repository("RedisClient")
 @Scope("singleton")
@@ -33,7 +51,7 @@ public class RedisClient {
 
 	private Log log = LogFactory.getLog(RedisClient.class);
 
-	private static JedisCluster jc;
+	private static PipelineJedisCluster jc;
 
 	private static JedisPool pool = null;
 
@@ -47,9 +65,15 @@ public class RedisClient {
 	private Integer maxRedirections;
 	@Value("${redis.server.timeout}")
 	private Integer timeout;
+	// 连接池耗尽时等待连接的最长时间(毫秒)，应远小于熔断窗口，让失败策略尽快感知故障
+	@Value("${redis.server.maxWaitMillis:20}")
+	private long maxWaitMillis;
 
-	// redis集群发生硬件故障/重启时，减少没用的日志输出，间隔30秒处理一次
-	private static long errorWaitTimeout = 30 * 1000l;
+	@Autowired
+	private RedisFailurePolicy failurePolicy;
+
+	// 批量命令每个pipeline最多携带的命令数，避免单次回包过大
+	private static final int PIPELINE_BATCH_SIZE = 1000;
 
 	@PostConstruct
 	public void init() {
@@ -69,200 +93,176 @@ public class RedisClient {
 				config.setMaxTotal(1500);
 			else
 				config.setMaxTotal(maxTotal);
+			config.setMaxWaitMillis(maxWaitMillis);
 
 			if (maxRedirections == null || maxRedirections <= 0)
 				maxRedirections = 200;
 			if (timeout == null || timeout <= 0)
 				timeout = 10000;
 
-			jc = new JedisCluster(jedisClusterNodes, timeout, maxRedirections,config);
+			jc = new PipelineJedisCluster(jedisClusterNodes, timeout, maxRedirections, config);
 		} else {
 			initPool();
 		}
 		log.info("--------> Redis init success <---------");
 	}
 
-	private Jedis getResource() {
-		if (pool == null)
-			return getRealConnection();
-		return pool.getResource();
+	@PreDestroy
+	public void destroy() {
+		if (pool != null)
+			pool.close();
 	}
 
-	private Jedis getRealConnection() {
+	/**
+	 * 从连接池借连接；池耗尽等待超时(JedisException)按连接失败处理，交给失败策略重试/熔断
+	 */
+	private Jedis getResource() {
+		if (pool == null)
+			initPool();
 		try {
-			String[] serverList = StringHelper.splitStr(servers, ",");
-			String[] temp = StringHelper.splitStr(serverList[0], ":");
-			// Jedis res = new Jedis(temp[0], Integer.parseInt(temp[1]));
-			JedisPoolConfig config = new JedisPoolConfig();
-			config.setMaxTotal(500);
-			config.setMaxIdle(10);
-			config.setMaxWaitMillis(100000l);
-			config.setTestOnBorrow(true);
-//			pool = new JedisPool(config, temp[0], Integer.parseInt(temp[1]));
-			//使用redis第2个db
-			pool = new JedisPool(config, temp[0], Integer.parseInt(temp[1]), 2000, null, 1);
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
+			return pool.getResource();
+		} catch (JedisConnectionException e) {
+			throw e;
+		} catch (JedisException e) {
+			throw new JedisConnectionException(e.getMessage(), e);
 		}
-		return pool.getResource();
 	}
 
-	private void returnResource(Jedis jedis) {
-		try {
-			if (jedis != null) {
-				if (pool != null) {
-					 pool.returnResource(jedis);
-					jedis.close();
-				}
-			}
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
+	private synchronized void initPool() {
+		if (pool != null)
+			return;
+		String[] serverList = StringHelper.splitStr(servers, ",");
+		String[] temp = StringHelper.splitStr(serverList[0], ":");
+		JedisPoolConfig config = new JedisPoolConfig();
+		config.setMaxTotal(500);
+		config.setMaxIdle(10);
+		config.setMaxWaitMillis(maxWaitMillis);
+		config.setTestOnBorrow(true);
+		//使用redis第2个db
+		pool = new JedisPool(config, temp[0], Integer.parseInt(temp[1]), 2000, null, 1);
 	}
 
-	private void initPool() {
-		getRealConnection();
+	/**
+	 * 集群模式下的命令
+	 */
+	private interface ClusterAction<R> {
+		R doInCluster(JedisCluster cluster);
 	}
 
 	/**
-	 * SortedSet（有序集合）
-	 * 返回有序集 key 中，所有 score 值介于 min 和 max 之间(包括等于 min 或 max )的成员。有序集成员按 score 值递增(从小到大)次序排列。
-	 * @param key
-	 * @param min
-	 * @param max
-	 * @return
+	 * 单机模式下的命令，连接由execute负责借还
 	 */
-	public Set<String> zrangeByScore(String key, String min, String max) {
-		try {
+	private interface JedisAction<R> {
+		R doInJedis(Jedis jedis);
+	}
+
+	/**
+	 * 一次完整的redis调用
+	 */
+	private interface RedisAction<R> {
+		R doInRedis();
+	}
+
+	/**
+	 * 执行幂等命令，连接失败时按失败策略重试
+	 */
+	private <R> R execute(String command, ClusterAction<R> clusterAction, JedisAction<R> jedisAction) {
+		return execute(command, true, clusterAction, jedisAction);
+	}
+
+	/**
+	 * 执行非幂等命令(incr/push/pop等)，连接失败不重试，避免重复执行
+	 */
+	private <R> R executeOnce(String command, ClusterAction<R> clusterAction, JedisAction<R> jedisAction) {
+		return execute(command, false, clusterAction, jedisAction);
+	}
+
+	private <R> R execute(String command, boolean retryable, final ClusterAction<R> clusterAction,
+			final JedisAction<R> jedisAction) {
+		return executeAction(command, retryable, () -> {
 			if (isCluster)
-				return jc.zrangeByScore(key, min, max);
-			else
-				return zrangeByScoreSingle(key, min, max);
-		} catch (Exception e) {
-			Log4jManager.logError(e);
+				return clusterAction.doInCluster(jc);
+			Jedis jedis = getResource();
 			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return zrangeByScore(key, min, max);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
+				return jedisAction.doInJedis(jedis);
+			} finally {
+				jedis.close();
 			}
-		}
-		return null;
+		});
 	}
+
 	/**
-	 * SortedSet（有序集合）
-	 * 返回有序集 key 中，所有 score 值介于 min 和 max 之间(包括等于 min 或 max )的成员。有序集成员按 score 值递增(从小到大)次序排列。
-	 * @param key
-	 * @param min
-	 * @param max
-	 * @return
+	 * 按失败策略执行一次redis调用：熔断打开时直接抛出，连接失败时有限次退避重试，命令错误原样抛出
 	 */
-	private Set<String> zrangeByScoreSingle(String key, String min, String max) {
-		try {
-			Set<String> _value = null;
-			Jedis jedis = getResource();
-			_value = jedis.zrangeByScore(key, min, max);
-			returnResource(jedis);
-			return _value;
-		} catch (Exception e) {
-			Log4jManager.logError(e);
+	private <R> R executeAction(String command, boolean retryable, RedisAction<R> action) {
+		if (!failurePolicy.allowRequest())
+			throw new RedisUnavailableException("redis circuit open, fail fast: " + command);
+		for (int attempt = 1;; attempt++) {
 			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return zrangeByScoreSingle(key, min, max);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
+				R value = action.doInRedis();
+				failurePolicy.onSuccess();
+				return value;
+			} catch (JedisException e) {
+				if (!isConnectionFailure(e)) {
+					// redis有响应，只是命令本身出错
+					failurePolicy.onSuccess();
+					throw e;
+				}
+				failurePolicy.onFailure(e);
+				long delay = retryable ? failurePolicy.retryDelay(attempt, e) : -1;
+				if (delay < 0 || !failurePolicy.allowRequest()) {
+					log.warn("redis command failed: " + command + ", attempts: " + attempt + ", " + e.getMessage());
+					throw new RedisUnavailableException("redis command failed: " + command, e);
+				}
+				sleepBeforeRetry(command, delay, e);
 			}
 		}
-		return null;
 	}
+
 	/**
-	 * SortedSet（有序集合）
-	 * 返回有序集 key 中，指定区间内的成员
-	 * @param key
-	 * @param start
-	 * @param end
-	 * @return
+	 * 是否属于连接层面的失败。集群重定向次数耗尽(JedisClusterMaxRedirectionsException)虽然继承JedisDataException，
+	 * 实际是节点不可达时JedisCluster重试用尽后抛出的；集群取连接超时等只以JedisException抛出，同样按连接失败处理
 	 */
-	public Set<String> zrange(String key, long start, long end) {
+	private static boolean isConnectionFailure(JedisException e) {
+		return e instanceof JedisConnectionException || e instanceof JedisClusterMaxRedirectionsException
+				|| !(e instanceof JedisDataException);
+	}
+
+	private void sleepBeforeRetry(String command, long delay, Exception cause) {
+		if (delay <= 0)
+			return;
 		try {
-			if (isCluster)
-				return jc.zrange(key, start, end);
-			else
-				return zrangeSingle(key, start, end);
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return zrange(key, start, end);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
+			Thread.sleep(delay);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RedisUnavailableException("interrupted while retrying redis command: " + command, cause);
 		}
-		return null;
 	}
 
 	/**
 	 * SortedSet（有序集合）
-	 * 返回有序集 key 中，指定区间内的成员
+	 * 返回有序集 key 中，所有 score 值介于 min 和 max 之间(包括等于 min 或 max )的成员。有序集成员按 score 值递增(从小到大)次序排列。
 	 * @param key
-	 * @param start
-	 * @param end
+	 * @param min
+	 * @param max
 	 * @return
 	 */
-	private Set<String> zrangeSingle(String key, long start, long end) {
-		try {
-			Set<String> _value = null;
-			Jedis jedis = getResource();
-			_value = jedis.zrange(key, start, end);
-			returnResource(jedis);
-
-			return _value;
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return zrangeSingle(key, start, end);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return null;
+	public Set<String> zrangeByScore(final String key, final String min, final String max) {
+		return execute("zrangeByScore", c -> c.zrangeByScore(key, min, max), j -> j.zrangeByScore(key, min, max));
 	}
 
 	/**
 	 * SortedSet（有序集合）
-	 * 将一个或多个 member 元素及其 score 值加入到有序集 key 当中。
+	 * 返回有序集 key 中，指定区间内的成员
 	 * @param key
-	 * @param members
+	 * @param start
+	 * @param end
 	 * @return
 	 */
-	public Long zadd(String key, Map<String, Double> members) {
-		try {
-			if (isCluster)
-				return jc.zadd(key, members);
-			else
-				return zaddSignle(key, members);
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return zadd(key, members);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return null;
+	public Set<String> zrange(final String key, final long start, final long end) {
+		return execute("zrange", c -> c.zrange(key, start, end), j -> j.zrange(key, start, end));
 	}
+
 	/**
 	 * SortedSet（有序集合）
 	 * 将一个或多个 member 元素及其 score 值加入到有序集 key 当中。
@@ -270,24 +270,8 @@ public class RedisClient {
 	 * @param members
 	 * @return
 	 */
-	private Long zaddSignle(String key, Map<String, Double> members) {
-		try {
-			long _value = 0;
-			Jedis jedis = getResource();
-			_value = jedis.zadd(key, members);
-			returnResource(jedis);
-
-			return _value;
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return zaddSignle(key, members);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return null;
+	public Long zadd(final String key, final Map<String, Double> members) {
+		return execute("zadd", c -> c.zadd(key, members), j -> j.zadd(key, members));
 	}
 
 	/**
@@ -296,227 +280,51 @@ public class RedisClient {
 	 * @param key
 	 * @return
 	 */
-	public long zcard(String key) {
-		try {
-			if (isCluster)
-				return jc.zcard(key);
-			else
-				return zcardSingle(key);
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return zcard(key);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return 0l;
+	public long zcard(final String key) {
+		return execute("zcard", c -> c.zcard(key), j -> j.zcard(key));
 	}
-	/**
-	 *  SortedSet（有序集合）
-	 * 返回有序集 key 的基数。
-	 * @param key
-	 * @return
-	 */
-	private long zcardSingle(String key) {
-		try {
-			long _value = 0;
-			Jedis jedis = getResource();
-			_value = jedis.zcard(key);
-			returnResource(jedis);
 
-			return _value;
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return zcardSingle(key);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return 0l;
-	}
 	/**
 	 *  SortedSet（有序集合）
 	 * 将一个或多个 member 元素及其 score 值加入到有序集 key 当中。
 	 * @param key
 	 * @return
 	 */
-	public long zadd(String key, double score, String member) {
-		try {
-			if (isCluster)
-				return jc.zadd(key, score, member);
-			else
-				return zaddSingle(key, score, member);
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return zadd(key, score, member);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return 0l;
+	public long zadd(final String key, final double score, final String member) {
+		return execute("zadd", c -> c.zadd(key, score, member), j -> j.zadd(key, score, member));
 	}
-	/**
-	 *  SortedSet（有序集合）
-	 * 将一个或多个 member 元素及其 score 值加入到有序集 key 当中。
-	 * @param key
-	 * @return
-	 */
-	private long zaddSingle(String key, double score, String member) {
-		try {
-			long _value = 0;
-			Jedis jedis = getResource();
-			_value = jedis.zadd(key, score, member);
-			returnResource(jedis);
 
-			return _value;
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return zaddSingle(key, score, member);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return 0l;
-	}
 	/**
 	 *  SortedSet（有序集合）
 	 * 移除有序集 key 中的一个或多个成员，不存在的成员将被忽略。
 	 * @param key
 	 * @param member
 	 */
-	public void zrem(String key, String member) {
-		try {
-			if (isCluster)
-				jc.zrem(key, member);
-			else {
-				long _value = 0;
-				Jedis jedis = getResource();
-				_value = jedis.zrem(key, member);
-				returnResource(jedis);
-			}
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				zrem(key, member);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
+	public void zrem(final String key, final String member) {
+		execute("zrem", c -> c.zrem(key, member), j -> j.zrem(key, member));
 	}
 
 	/**
 	 * 为有序集 key 的成员 member 的 score 值加上增量 increment
-	 * 
-	 * @param key
-	 * @param score
-	 * @param member
-	 * @return
-	 */
-	public double zincrby(String key, double score, String member) {
-		try {
-			if (isCluster)
-				return jc.zincrby(key, score, member);
-			else
-				return zincrbySingle(key, score, member);
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return zincrby(key, score, member);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return 0.0d;
-	}
-	/**
-	 * 为有序集 key 的成员 member 的 score 值加上增量 increment
-	 * 
+	 *
 	 * @param key
 	 * @param score
 	 * @param member
 	 * @return
 	 */
-	private double zincrbySingle(String key, double score, String member) {
-		try {
-			double _value = 0;
-			Jedis jedis = getResource();
-			_value = jedis.zincrby(key, score, member);
-			returnResource(jedis);
-
-			return _value;
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return zincrbySingle(key, score, member);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return 0.0d;
+	public double zincrby(final String key, final double score, final String member) {
+		return executeOnce("zincrby", c -> c.zincrby(key, score, member), j -> j.zincrby(key, score, member));
 	}
 
 	/**
 	 * 判断一个有序集合中是否包含某一个元素
-	 * 
+	 *
 	 * @param key
 	 * @param member
 	 * @return
 	 */
-	public boolean zexist(String key, String member) {
-		try {
-			if (isCluster) {
-				boolean _value = jc.zrank(key, member) != null;
-				return _value;
-			} else {
-				return zexistSingle(key, member);
-			}
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return zexist(key, member);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return false;
-	}
-	/**
-	 * 判断一个有序集合中是否包含某一个元素
-	 * 
-	 * @param key
-	 * @param member
-	 * @return
-	 */
-	private boolean zexistSingle(String key, String member) {
-		try {
-			boolean _value = false;
-			Jedis jedis = getResource();
-			_value = jedis.zrank(key, member) != null;
-			returnResource(jedis);
-
-			return _value;
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return zexistSingle(key, member);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return false;
+	public boolean zexist(final String key, final String member) {
+		return execute("zrank", c -> c.zrank(key, member) != null, j -> j.zrank(key, member) != null);
 	}
 
 	/**
@@ -526,28 +334,8 @@ public class RedisClient {
 	 * @param members
 	 * @return long
 	 */
-	public long srem(String key, String... members) {
-		try {
-			if (isCluster)
-				return jc.srem(key, members);
-			else {
-				long _value = 0L;
-				Jedis jedis = getResource();
-				_value = jedis.srem(key, members);
-				returnResource(jedis);
-
-				return _value;
-			}
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return srem(key, members);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return 0l;
+	public long srem(final String key, final String... members) {
+		return execute("srem", c -> c.srem(key, members), j -> j.srem(key, members));
 	}
 
 	/**
@@ -556,52 +344,8 @@ public class RedisClient {
 	 * @param key
 	 * @return long
 	 */
-	public long scard(String key) {
-		try {
-			if (isCluster)
-				return jc.scard(key);
-			else {
-				long _value = 0L;
-				Jedis jedis = getResource();
-				_value = jedis.scard(key);
-				returnResource(jedis);
-				return _value;
-			}
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return scard(key);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return 0l;
-	}
-
-	/**
-	 * Set（集合）
-	 * 向一个指定的集合中添加元素
-	 * @param key
-	 * @param members
-	 * @return 被添加到集合中的新元素的数量，不包括被忽略的元素。
-	 */
-	public long sadd(String key, String... members) {
-		try {
-			if (isCluster)
-				return jc.sadd(key, members);
-			else
-				return saddSingle(key, members);
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return sadd(key, members);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return 0l;
+	public long scard(final String key) {
+		return execute("scard", c -> c.scard(key), j -> j.scard(key));
 	}
 
 	/**
@@ -611,24 +355,8 @@ public class RedisClient {
 	 * @param members
 	 * @return 被添加到集合中的新元素的数量，不包括被忽略的元素。
 	 */
-	private long saddSingle(String key, String... members) {
-		try {
-			long _value = 0L;
-			Jedis jedis = getResource();
-			_value = jedis.sadd(key, members);
-			returnResource(jedis);
-
-			return _value;
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return saddSingle(key, members);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return 0l;
+	public long sadd(final String key, final String... members) {
+		return execute("sadd", c -> c.sadd(key, members), j -> j.sadd(key, members));
 	}
 
 	/**
@@ -638,46 +366,8 @@ public class RedisClient {
 	 * @param count
 	 * @return Set<String>
 	 */
-	public Set<String> spop(String key, int count) {
-		try {
-			if (isCluster)
-				return jc.spop(key, count);
-			else
-				return spopSingle(key, count);
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return spop(key, count);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return null;
-	}
-	/**
-	 * Set（集合）
-	 * 从队列中弹出指定数量的对象<br>
-	 * @param key
-	 * @param count
-	 * @return Set<String>
-	 */
-	private Set<String> spopSingle(String key, int count) {
-		try {
-			Jedis jedis = getResource();
-			Set<String> res = jedis.spop(key, count);
-			returnResource(jedis);
-			return res;
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return spopSingle(key, count);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return null;
+	public Set<String> spop(final String key, final int count) {
+		return executeOnce("spop", c -> c.spop(key, count), j -> j.spop(key, count));
 	}
 
 	/**
@@ -686,45 +376,8 @@ public class RedisClient {
 	 * @param key
 	 * @return String
 	 */
-	public String spop(String key) {
-		try {
-			if (isCluster)
-				return jc.spop(key);
-			else
-				return spopSingle(key);
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return spop(key);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return null;
-	}
-	/**
-	 * Set（集合）
-	 * 从队列中弹出单个对象<br>
-	 * @param key
-	 * @return String
-	 */
-	private String spopSingle(String key) {
-		try {
-			Jedis jedis = getResource();
-			String res = jedis.spop(key);
-			returnResource(jedis);
-			return res;
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return spopSingle(key);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return null;
+	public String spop(final String key) {
+		return executeOnce("spop", c -> c.spop(key), j -> j.spop(key));
 	}
 
 	/**
@@ -734,78 +387,10 @@ public class RedisClient {
 	 * @param hash
 	 * @return
 	 */
-	public String hmset(String key, Map<String, String> hash) {
-		try {
-			if (isCluster)
-				return jc.hmset(key, hash);
-			else
-				return hmsetSingle(key, hash);
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return hmset(key, hash);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return null;
+	public String hmset(final String key, final Map<String, String> hash) {
+		return execute("hmset", c -> c.hmset(key, hash), j -> j.hmset(key, hash));
 	}
 
-	/**
-	 * Hash（哈希表）
-	 * 向hash中一次加入多个值
-	 * @param key
-	 * @param hash
-	 * @return
-	 */
-	private String hmsetSingle(String key, Map<String, String> hash) {
-		try {
-			String _value = null;
-			Jedis jedis = getResource();
-			_value = jedis.hmset(key, hash);
-			returnResource(jedis);
-
-			return _value;
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return hmsetSingle(key, hash);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return null;
-	}
-
-	/**
-	 * Hash（哈希表）
-	 * 在哈希表中添加内容
-	 * @param key
-	 * @param field
-	 * @param value
-	 * @return
-	 */
-	public boolean hset(String key, String field, String value) {
-		try {
-			if (isCluster) {
-				jc.hset(key, field, value);
-				return true;
-			} else {
-				return hsetSingle(key, field, value);
-			}
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return hset(key, field, value);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return false;
-	}
 	/**
 	 * Hash（哈希表）
 	 * 在哈希表中添加内容
@@ -814,23 +399,9 @@ public class RedisClient {
 	 * @param value
 	 * @return
 	 */
-	private boolean hsetSingle(String key, String field, String value) {
-		try {
-			Jedis jedis = getResource();
-			jedis.hset(key, field, value);
-			returnResource(jedis);
-
-			return true;
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return hsetSingle(key, field, value);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return false;
+	public boolean hset(final String key, final String field, final String value) {
+		execute("hset", c -> c.hset(key, field, value), j -> j.hset(key, field, value));
+		return true;
 	}
 
 	/**
@@ -840,48 +411,8 @@ public class RedisClient {
 	 *            需要自增的key
 	 * @return 自增后的值
 	 */
-	public long incr(String key) {
-		try {
-			if (isCluster)
-				return jc.incr(key);
-			else
-				return incrSingle(key);
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return incr(key);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return 0l;
-	}
-	/**
-	 * String（字符串）
-	 * 将指定的key+1，如果该key不存在，则先初始化为0，然后再进行自增操作
-	 * @param key
-	 *            需要自增的key
-	 * @return 自增后的值
-	 */
-	private long incrSingle(String key) {
-		try {
-			long _value = 0L;
-			Jedis jedis = getResource();
-			_value = jedis.incr(key);
-			returnResource(jedis);
-
-			return _value;
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return incrSingle(key);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return 0l;
+	public long incr(final String key) {
+		return executeOnce("incr", c -> c.incr(key), j -> j.incr(key));
 	}
 
 	/**
@@ -890,308 +421,62 @@ public class RedisClient {
 	 * @return 当 key 不存在时，返回 -2 。当 key 存在但没有设置剩余生存时间时，返回 -1 。否则，以秒为单位，返回 key
 	 *         的剩余生存时间。
 	 */
-	public long ttl(String key) {
-		try {
-			if (isCluster)
-				return jc.ttl(key);
-			else
-				return ttlSingle(key);
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return ttl(key);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return 0l;
-	}
-	/**
-	 * 查看指定key的剩余时间
-	 * @param key
-	 * @return 当 key 不存在时，返回 -2 。当 key 存在但没有设置剩余生存时间时，返回 -1 。否则，以秒为单位，返回 key
-	 *         的剩余生存时间。
-	 */
-	private long ttlSingle(String key) {
-		try {
-			long _value = 0L;
-			Jedis jedis = getResource();
-			_value = jedis.ttl(key);
-			returnResource(jedis);
-
-			return _value;
-
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return ttlSingle(key);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return 0l;
+	public long ttl(final String key) {
+		return execute("ttl", c -> c.ttl(key), j -> j.ttl(key));
 	}
 
 	/**
 	 * 对指定的key进行排序
-	 * 
+	 *
 	 * @param key
 	 * @param params
 	 * @return
 	 */
-	public List<String> sort(String key, SortingParams params) {
-		try {
-			if (isCluster)
-				return jc.sort(key, params);
-			else
-				return sortSingle(key, params);
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return sort(key, params);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return null;
-	}
-	/**
-	 * 对指定的key进行排序
-	 * 
-	 * @param key
-	 * @param params
-	 * @return
-	 */
-	private List<String> sortSingle(String key, SortingParams params) {
-		try {
-			List<String> _value = null;
-			Jedis jedis = getResource();
-			_value = jedis.sort(key, params);
-			returnResource(jedis);
-
-			return _value;
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return sortSingle(key, params);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return null;
+	public List<String> sort(final String key, final SortingParams params) {
+		return execute("sort", c -> c.sort(key, params), j -> j.sort(key, params));
 	}
 
 	/**
 	 * 将指定的key在指定的时间戳过期
-	 * 
+	 *
 	 * @param key
 	 * @param unixTime
 	 *            unix时间戳
 	 * @return 如果生存时间设置成功，返回 1 。当 key 不存在或没办法设置生存时间，返回 0 。
 	 */
-	public long expireAt(String key, long unixTime) {
-		try {
-			if (isCluster)
-				return jc.expireAt(key, unixTime);
-			else
-				return expireAtSingle(key, unixTime);
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return expireAt(key, unixTime);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return 0l;
-	}
-	/**
-	 * 将指定的key在指定的时间戳过期
-	 * 
-	 * @param key
-	 * @param unixTime
-	 *            unix时间戳
-	 * @return 如果生存时间设置成功，返回 1 。当 key 不存在或没办法设置生存时间，返回 0 。
-	 */
-	private long expireAtSingle(String key, long unixTime) {
-		try {
-			long _value = 0L;
-			Jedis jedis = getResource();
-			_value = jedis.expireAt(key, unixTime);
-			returnResource(jedis);
-
-			return _value;
-
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return expireAtSingle(key, unixTime);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return 0l;
+	public long expireAt(final String key, final long unixTime) {
+		return execute("expireAt", c -> c.expireAt(key, unixTime), j -> j.expireAt(key, unixTime));
 	}
 
 	/**
 	 * 移除给定key的生存周期
-	 * 
-	 * @param key
-	 * @return 移除成功返回1，失败返回0
-	 */
-	public long persist(String key) {
-		try {
-			if (isCluster)
-				return jc.persist(key);
-			else
-				return persistSingle(key);
-
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return persist(key);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return 0l;
-	}
-	/**
-	 * 移除给定key的生存周期
-	 * 
+	 *
 	 * @param key
 	 * @return 移除成功返回1，失败返回0
 	 */
-	private long persistSingle(String key) {
-		try {
-			long _value = 0L;
-			Jedis jedis = getResource();
-			_value = jedis.persist(key);
-			returnResource(jedis);
-
-			return _value;
-
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return persistSingle(key);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return 0l;
+	public long persist(final String key) {
+		return execute("persist", c -> c.persist(key), j -> j.persist(key));
 	}
 
 	/**
 	 * 将指定的key设置过期时间
-	 * 
+	 *
 	 * @param key 指定的key
 	 * @param seconds 过期时间
 	 * @return
 	 */
-	public long expire(String key, int seconds) {
-		try {
-			if (isCluster)
-				return jc.expire(key, seconds);
-			else
-				return expireSignle(key, seconds);
-
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return expire(key, seconds);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return 0l;
+	public long expire(final String key, final int seconds) {
+		return execute("expire", c -> c.expire(key, seconds), j -> j.expire(key, seconds));
 	}
-	/**
-	 * 将指定的key设置过期时间
-	 * 
-	 * @param key 指定的key
-	 * @param seconds 过期时间
-	 * @return
-	 */
-	private long expireSignle(String key, int seconds) {
-		try {
-			long _value = 0L;
-			Jedis jedis = getResource();
-			_value = jedis.expire(key, seconds);
-			returnResource(jedis);
 
-			return _value;
-
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return expireSignle(key, seconds);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return 0l;
-	}
-
-	/**
-	 * 判断给定的键值是否存在
-	 * 
-	 * @param key 需要判断的键值
-	 * @return
-	 */
-	public boolean exist(String key) {
-		try {
-			if (isCluster)
-				return jc.exists(key);
-			else
-				return existSingle(key);
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return exist(key);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return false;
-
-	}
 	/**
 	 * 判断给定的键值是否存在
-	 * 
+	 *
 	 * @param key 需要判断的键值
 	 * @return
 	 */
-	private boolean existSingle(String key) {
-		try {
-			boolean _value = false;
-			Jedis jedis = getResource();
-			_value = jedis.exists(key);
-			returnResource(jedis);
-
-			return _value;
-
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return existSingle(key);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return false;
+	public boolean exist(final String key) {
+		return execute("exists", c -> c.exists(key), j -> j.exists(key));
 	}
 
 	/**
@@ -1200,75 +485,36 @@ public class RedisClient {
 	 * @param value 键值
 	 * @return 如果设置成功则返回1，否则返回0
 	 */
-	public long setIfNotExist(String key, String value) {
-		try {
-			if (isCluster)
-				return jc.setnx(key, value);
-			else
-				return setIfNotExistSingle(key, value);
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return setIfNotExist(key, value);
-			} catch (InterruptedException e1) {
-				// TODO Auto-generated catch block
-				e1.printStackTrace();
-			}
-		}
-		return 0l;
+	public long setIfNotExist(final String key, final String value) {
+		return executeOnce("setnx", c -> c.setnx(key, value), j -> j.setnx(key, value));
 	}
+
 	/**
-	 * 如果key不存在则设置，否则不设置
+	 * 如果key不存在则设置并同时设置过期时间(SET NX EX)，用作短期分布式锁
 	 * @param key 键名
-	 * @param value 键值
-	 * @return 如果设置成功则返回1，否则返回0
+	 * @param value 键值，建议使用唯一token以便安全释放
+	 * @param second 过期时间
+	 * @return 设置成功返回true
 	 */
-	private long setIfNotExistSingle(String key, String value) {
-		try {
-			long _value = 0;
-			Jedis jedis = getResource();
-			_value = jedis.setnx(key, value);
-			returnResource(jedis);
-
-			return _value;
-
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return setIfNotExistSingle(key, value);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return 0l;
+	public boolean setIfNotExist(final String key, final String value, final int second) {
+		return executeOnce("setnx", c -> "OK".equals(c.set(key, value, "NX", "EX", second)),
+				j -> "OK".equals(j.set(key, value, "NX", "EX", second)));
 	}
 
 	/**
-	 * 设置键值并设置过期时间
+	 * 当key的值等于value时删除(原子操作)，用于释放setIfNotExist获得的锁
 	 * @param key 键名
-	 * @param value 键值
-	 * @param second  过期时间
-	 * @return
+	 * @param value 期望的值
+	 * @return 删除成功返回true
 	 */
-	public String set(String key, String value, int second) {
-		try {
-			if (isCluster)
-				return jc.setex(key, second, value);
-			else
-				return setSingle(key, value, second);
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return set(key, value, second);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return null;
+	public boolean delIfEquals(final String key, final String value) {
+		return execute("delIfEquals", c -> Long.valueOf(1).equals(c.eval(DEL_IF_EQUALS_SCRIPT, 1, key, value)),
+				j -> Long.valueOf(1).equals(j.eval(DEL_IF_EQUALS_SCRIPT, 1, key, value)));
 	}
+
+	private static final String DEL_IF_EQUALS_SCRIPT = "if redis.call('get', KEYS[1]) == ARGV[1] then "
+			+ "return redis.call('del', KEYS[1]) else return 0 end";
+
 	/**
 	 * 设置键值并设置过期时间
 	 * @param key 键名
@@ -1276,25 +522,8 @@ public class RedisClient {
 	 * @param second  过期时间
 	 * @return
 	 */
-	private String setSingle(String key, String value, int second) {
-		try {
-			String _value = null;
-			Jedis jedis = getResource();
-			_value = jedis.setex(key, second, value);
-			returnResource(jedis);
-
-			return _value;
-
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return setSingle(key, value, second);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return null;
+	public String set(final String key, final String value, final int second) {
+		return execute("setex", c -> c.setex(key, second, value), j -> j.setex(key, second, value));
 	}
 
 	/**
@@ -1305,67 +534,17 @@ public class RedisClient {
 	 * 将字符串值 <tt class="docutils literal"><span class="pre">value</span></tt>
 	 * 关联到 <tt class="docutils literal"><span class="pre">key</span></tt> 。
 	 * </p>
-	 * 
+	 *
 	 * @param key 键名
 	 * @param value 键值
 	 * @return
 	 */
-	public String set(String key, String value) {
-		try {
-			if (isCluster)
-				return jc.set(key, value);
-			else
-				return setSingle(key, value);
-
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return set(key, value);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return null;
-	}
-
-	private String setSingle(String key, String value) {
-		try {
-			String _value = null;
-			Jedis jedis = getResource();
-			_value = jedis.set(key, value);
-			returnResource(jedis);
-
-			return _value;
-
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return setSingle(key, value);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return null;
+	public String set(final String key, final String value) {
+		return execute("set", c -> c.set(key, value), j -> j.set(key, value));
 	}
 
 	public String set(String key, Object value) {
-		try {
-			if (isCluster)
-				return jc.set(key, value.toString());
-			else
-				return setSingle(key, value.toString());
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return set(key, value);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-			return null;
-		}
+		return set(key, value.toString());
 	}
 
 	/**
@@ -1379,287 +558,392 @@ public class RedisClient {
 	 * 删除单个字符串类型的 key ，时间复杂度为O(1)。 <br/>
 	 * 删除单个列表、集合、有序集合或哈希表类型的key ，时间复杂度为O(M)， M 为以上数据结构内的元素数量。<br/>
 	 * <b>返回值：</b></br> 被删除 key 的数量。
-	 * 
+	 *
 	 * @param keys
 	 *            需要被删除的key
 	 * @return
 	 */
-	public void del(String... keys) {
-		for (String e : keys) {
-			del(e);
+	public long del(String... keys) {
+		if (keys == null || keys.length == 0)
+			return 0l;
+		final List<String> keyList = new ArrayList<String>(keys.length);
+		Collections.addAll(keyList, keys);
+		List<Long> res = executePipelined("del", keyList, new PipelineCommand<Long>() {
+			public Response<Long> pipeline(Pipeline p, int index) {
+				return p.del(keyList.get(index));
+			}
+
+			public Long cluster(JedisCluster cluster, int index) {
+				return cluster.del(keyList.get(index));
+			}
+		});
+		long value = 0l;
+		for (Long e : res) {
+			if (e != null)
+				value += e;
 		}
+		return value;
 	}
 
-	public long del(String key) {
-		try {
-			if (isCluster)
-				return jc.del(key);
-			else
-				return delSingle(key);
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return del(key);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
+	/**
+	 * 批量获取多个key的内容，单机模式走pipeline，集群模式按节点分组pipeline<br/>
+	 * 返回结果与keys顺序一致，不存在的key对应位置为null
+	 *
+	 * @param keys
+	 * @return List<String>
+	 */
+	public List<String> mget(final List<String> keys) {
+		if (keys == null || keys.isEmpty())
+			return new ArrayList<String>();
+		return executePipelined("mget", keys, new PipelineCommand<String>() {
+			public Response<String> pipeline(Pipeline p, int index) {
+				return p.get(keys.get(index));
 			}
-		}
-		return 0l;
+
+			public String cluster(JedisCluster cluster, int index) {
+				return cluster.get(keys.get(index));
+			}
+		});
 	}
 
-	private long delSingle(String... keys) {
-		try {
-			long value = 0;
-			Jedis jedis = getResource();
-			value = jedis.del(keys);
-			returnResource(jedis);
+	/**
+	 * 批量写入多个KEY VALUE，单机模式走pipeline，集群模式按节点分组pipeline
+	 *
+	 * @param keyValues
+	 * @param second 过期时间，0为永久，单位秒
+	 */
+	public void mset(Map<String, String> keyValues, final int second) {
+		if (keyValues == null || keyValues.isEmpty())
+			return;
+		final List<String> keys = new ArrayList<String>(keyValues.keySet());
+		final List<String> values = new ArrayList<String>(keyValues.values());
+		executePipelined("mset", keys, new PipelineCommand<String>() {
+			public Response<String> pipeline(Pipeline p, int index) {
+				if (second <= 0)
+					return p.set(keys.get(index), values.get(index));
+				return p.setex(keys.get(index), second, values.get(index));
+			}
 
-			return value;
+			public String cluster(JedisCluster cluster, int index) {
+				if (second <= 0)
+					return cluster.set(keys.get(index), values.get(index));
+				return cluster.setex(keys.get(index), second, values.get(index));
+			}
+		});
+	}
+
+	/**
+	 * 批量命令中的单条命令，分别给出pipeline写法和集群直连写法(用于MOVED/ASK后的补偿)
+	 */
+	private interface PipelineCommand<R> {
+		Response<R> pipeline(Pipeline p, int index);
 
-		} catch (Exception e) {
-			Log4jManager.logError(e);
+		R cluster(JedisCluster cluster, int index);
+	}
+
+	private <R> List<R> executePipelined(String command, final List<String> keys, final PipelineCommand<R> pc) {
+		return executeAction(command, true, () -> pipelined(keys, pc));
+	}
+
+	/**
+	 * 执行批量命令，返回结果与keys顺序一致
+	 *
+	 * @param keys
+	 * @param command
+	 * @return List<R>
+	 */
+	private <R> List<R> pipelined(List<String> keys, PipelineCommand<R> command) {
+		List<R> results = new ArrayList<R>(Collections.<R> nCopies(keys.size(), null));
+		if (isCluster) {
+			for (List<Integer> group : groupByNode(keys)) {
+				pipelinedCluster(keys, group, command, results);
+			}
+		} else {
+			List<Integer> indexes = new ArrayList<Integer>(keys.size());
+			for (int i = 0; i < keys.size(); i++) {
+				indexes.add(i);
+			}
+			Jedis jedis = getResource();
 			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return delSingle(keys);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
+				for (int from = 0; from < indexes.size(); from += PIPELINE_BATCH_SIZE) {
+					List<Integer> batch = indexes.subList(from, Math.min(from + PIPELINE_BATCH_SIZE, indexes.size()));
+					List<Integer> failed = syncPipeline(jedis, batch, command, results);
+					if (!failed.isEmpty()) {
+						// 单机模式不存在重定向，命令本身出错直接抛出
+						throw new JedisDataException("pipeline command failed for key: " + keys.get(failed.get(0)));
+					}
+				}
+			} finally {
+				jedis.close();
 			}
 		}
-		return 0l;
+		return results;
 	}
 
 	/**
-	 * 获取指定key的内容
-	 * 
-	 * @param key
-	 * @return
+	 * 集群模式：同一节点上的key在一个连接上pipeline执行，遇到槽位迁移的key刷新槽位后逐个补偿
 	 */
-	public String get(String key) {
-		try {
-			if (isCluster)
-				return jc.get(key);
-			else
-				return getSingle(key);
-		} catch (Exception e) {
-			Log4jManager.logError(e);
+	private <R> void pipelinedCluster(List<String> keys, List<Integer> group, PipelineCommand<R> command,
+			List<R> results) {
+		List<Integer> redirected = new ArrayList<Integer>();
+		for (int from = 0; from < group.size(); from += PIPELINE_BATCH_SIZE) {
+			List<Integer> batch = group.subList(from, Math.min(from + PIPELINE_BATCH_SIZE, group.size()));
+			Jedis jedis = jc.getConnectionFromSlot(JedisClusterCRC16.getSlot(keys.get(batch.get(0))));
 			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return get(key);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
+				redirected.addAll(syncPipeline(jedis, batch, command, results));
+			} finally {
+				jedis.close();
+			}
+		}
+		if (!redirected.isEmpty()) {
+			jc.renewSlotCache();
+			for (Integer index : redirected) {
+				results.set(index, command.cluster(jc, index));
 			}
 		}
-		return null;
 	}
 
-	private String getSingle(String key) {
-		try {
-			String value = null;
-			Jedis jedis = getResource();
-			value = jedis.get(key);
-			returnResource(jedis);
-			return value;
-		} catch (Exception e) {
-			Log4jManager.logError(e);
+	/**
+	 * 在一个连接上pipeline执行一批命令，返回执行出错的下标
+	 */
+	private <R> List<Integer> syncPipeline(Jedis jedis, List<Integer> batch, PipelineCommand<R> command,
+			List<R> results) {
+		Pipeline p = jedis.pipelined();
+		List<Response<R>> responses = new ArrayList<Response<R>>(batch.size());
+		for (Integer index : batch) {
+			responses.add(command.pipeline(p, index));
+		}
+		p.sync();
+		List<Integer> failed = new ArrayList<Integer>();
+		for (int i = 0; i < batch.size(); i++) {
 			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return getSingle(key);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
+				results.set(batch.get(i), responses.get(i).get());
+			} catch (JedisDataException e) {
+				failed.add(batch.get(i));
 			}
 		}
-		return null;
+		return failed;
 	}
 
 	/**
-	 * 在哈希中获取指定key的内容
-	 * Hash（哈希表）
-	 * @param key
-	 * @return
+	 * 集群模式下按key所在节点分组，返回每组key在原列表中的下标
 	 */
-	public String hget(String key, String field) {
-		try {
-			if (isCluster)
-				return jc.hget(key, field);
-			else
-				return hgetSingle(key, field);
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return hget(key, field);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
+	private Collection<List<Integer>> groupByNode(List<String> keys) {
+		Map<String, List<Integer>> groups = new LinkedHashMap<String, List<Integer>>();
+		for (int i = 0; i < keys.size(); i++) {
+			String node = jc.getNodeKey(JedisClusterCRC16.getSlot(keys.get(i)));
+			List<Integer> group = groups.get(node);
+			if (group == null) {
+				group = new ArrayList<Integer>();
+				groups.put(node, group);
 			}
+			group.add(i);
 		}
-		return null;
+		return groups.values();
 	}
+
 	/**
-	 * 在哈希中获取指定key的内容
-	 * Hash（哈希表）
-	 * @param key
-	 * @return
+	 * 向频道发布消息
+	 *
+	 * @param channel
+	 * @param message
+	 * @return 收到消息的订阅者数量
+	 */
+	public long publish(final String channel, final String message) {
+		return execute("publish", c -> c.publish(channel, message), j -> j.publish(channel, message));
+	}
+
+	/**
+	 * 订阅频道，阻塞直到pubSub取消订阅或连接断开(抛出异常)，需在独立线程中调用<br/>
+	 * 长连接不经过失败策略，断线重连由调用方负责
+	 *
+	 * @param pubSub
+	 * @param channels
 	 */
-	private String hgetSingle(String key, String field) {
+	public void subscribe(JedisPubSub pubSub, String... channels) {
+		if (isCluster) {
+			jc.subscribe(pubSub, channels);
+			return;
+		}
+		Jedis jedis = getResource();
 		try {
-			String value = null;
-			Jedis jedis = getResource();
-			value = jedis.hget(key, field);
-			returnResource(jedis);
+			jedis.subscribe(pubSub, channels);
+		} finally {
+			jedis.close();
+		}
+	}
 
-			return value;
+	public long del(final String key) {
+		return execute("del", c -> c.del(key), j -> j.del(key));
+	}
 
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return hgetSingle(key, field);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return null;
+	/**
+	 * 获取指定key的内容
+	 *
+	 * @param key
+	 * @return
+	 */
+	public String get(final String key) {
+		return execute("get", c -> c.get(key), j -> j.get(key));
 	}
 
 	/**
-	 * 指定的key内，指定field是否存在
-	 * Hash（哈希表）
+	 * 以字节形式获取指定key的内容，供CacheCodec解码
+	 *
 	 * @param key
-	 * @param field
-	 * @return boolean
+	 * @return byte[]
 	 */
-	public boolean hexist(String key, String field) {
-		try {
-			if (isCluster)
-				return jc.hexists(key, field);
-			else {
-				boolean _value = false;
-				Jedis jedis = getResource();
-				_value = jedis.hexists(key, field);
-				returnResource(jedis);
-				return _value;
+	public byte[] getBytes(final String key) {
+		final byte[] k = SafeEncoder.encode(key);
+		return execute("get", c -> c.get(k), j -> j.get(k));
+	}
+
+	/**
+	 * 一次往返取得指定key的字节内容及剩余存活毫秒数
+	 *
+	 * @param key
+	 * @return ExpiringBytes，key不存在时value为null
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	ExpiringBytes getBytesWithPttl(final String key) {
+		final byte[] k = SafeEncoder.encode(key);
+		// 两条命令作用于同一key，必然落在同一节点的同一个pipeline中
+		List<Object> res = executePipelined("get", Arrays.asList(key, key), new PipelineCommand<Object>() {
+			public Response<Object> pipeline(Pipeline p, int index) {
+				return index == 0 ? (Response) p.get(k) : (Response) p.pttl(k);
 			}
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return hexist(key, field);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
+
+			public Object cluster(JedisCluster cluster, int index) {
+				return index == 0 ? cluster.get(k) : cluster.pttl(key);
 			}
+		});
+		Long pttl = (Long) res.get(1);
+		return new ExpiringBytes((byte[]) res.get(0), pttl == null ? -2 : pttl);
+	}
+
+	/**
+	 * 缓存内容及其剩余存活时间
+	 */
+	static final class ExpiringBytes {
+		final byte[] value;
+		// 剩余存活毫秒数，-1表示永久，-2表示不存在
+		final long pttl;
+
+		ExpiringBytes(byte[] value, long pttl) {
+			this.value = value;
+			this.pttl = pttl;
 		}
-		return false;
 	}
 
 	/**
-	 * 删除一个list中的指定个数的指定元素<br>
-	 * 当count=0的时候则删除所有相同元素<br>
-	 * List（列表）
+	 * 以字节形式写入指定key
+	 *
 	 * @param key
-	 * @param count
 	 * @param value
-	 * @return long
+	 * @param second 过期时间，0为永久，单位秒
+	 * @return
 	 */
-	public long lrem(String key, int count, String value) {
-		try {
-			if (isCluster)
-				return jc.lrem(key, count, value);
-			else {
-				Jedis jedis = getResource();
-				long res = jedis.lrem(key, count, value);
-				returnResource(jedis);
-				return res;
+	public String setBytes(final String key, final byte[] value, final int second) {
+		final byte[] k = SafeEncoder.encode(key);
+		if (second <= 0)
+			return execute("set", c -> c.set(k, value), j -> j.set(k, value));
+		return execute("setex", c -> c.setex(k, second, value), j -> j.setex(k, second, value));
+	}
+
+	/**
+	 * 以字节形式批量获取多个key的内容，返回结果与keys顺序一致，不存在的key对应位置为null
+	 *
+	 * @param keys
+	 * @return List<byte[]>
+	 */
+	public List<byte[]> mgetBytes(final List<String> keys) {
+		if (keys == null || keys.isEmpty())
+			return new ArrayList<byte[]>();
+		return executePipelined("mget", keys, new PipelineCommand<byte[]>() {
+			public Response<byte[]> pipeline(Pipeline p, int index) {
+				return p.get(SafeEncoder.encode(keys.get(index)));
 			}
 
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return lrem(key, count, value);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
+			public byte[] cluster(JedisCluster cluster, int index) {
+				return cluster.get(SafeEncoder.encode(keys.get(index)));
 			}
-		}
-		return 0l;
+		});
 	}
+
 	/**
-	 * List（列表）
-	 * 返回列表 key 中指定区间内的元素，区间以偏移量 start 和 stop 指定。
-	 * @param key
-	 * @param start
-	 * @param end
-	 * @return
+	 * 以字节形式批量写入多个KEY VALUE
+	 *
+	 * @param keyValues
+	 * @param second 过期时间，0为永久，单位秒
 	 */
-	public List<String> lrange(String key, long start, long end) {
-		try {
-			if (isCluster)
-				return jc.lrange(key, start, end);
-			else
-				return lrangeSingle(key, start, end);
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return lrange(key, start, end);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
+	public void msetBytes(Map<String, byte[]> keyValues, final int second) {
+		if (keyValues == null || keyValues.isEmpty())
+			return;
+		final List<String> keys = new ArrayList<String>(keyValues.keySet());
+		final List<byte[]> values = new ArrayList<byte[]>(keyValues.values());
+		executePipelined("mset", keys, new PipelineCommand<String>() {
+			public Response<String> pipeline(Pipeline p, int index) {
+				byte[] k = SafeEncoder.encode(keys.get(index));
+				if (second <= 0)
+					return p.set(k, values.get(index));
+				return p.setex(k, second, values.get(index));
 			}
-		}
-		return null;
+
+			public String cluster(JedisCluster cluster, int index) {
+				byte[] k = SafeEncoder.encode(keys.get(index));
+				if (second <= 0)
+					return cluster.set(k, values.get(index));
+				return cluster.setex(k, second, values.get(index));
+			}
+		});
 	}
+
 	/**
-	 * List（列表）
-	 * 返回列表 key 中指定区间内的元素，区间以偏移量 start 和 stop 指定。
+	 * 在哈希中获取指定key的内容
+	 * Hash（哈希表）
 	 * @param key
-	 * @param start
-	 * @param end
 	 * @return
 	 */
-	private List<String> lrangeSingle(String key, long start, long end) {
-		try {
-			List<String> value = null;
-			Jedis jedis = getResource();
-			value = jedis.lrange(key, start, end);
-			returnResource(jedis);
-			return value;
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return lrangeSingle(key, start, end);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return null;
+	public String hget(final String key, final String field) {
+		return execute("hget", c -> c.hget(key, field), j -> j.hget(key, field));
 	}
 
 	/**
+	 * 指定的key内，指定field是否存在
+	 * Hash（哈希表）
+	 * @param key
+	 * @param field
+	 * @return boolean
+	 */
+	public boolean hexist(final String key, final String field) {
+		return execute("hexists", c -> c.hexists(key, field), j -> j.hexists(key, field));
+	}
+
+	/**
+	 * 删除一个list中的指定个数的指定元素<br>
+	 * 当count=0的时候则删除所有相同元素<br>
 	 * List（列表）
-	 * 指定队列位置取值
-	 * 返回列表 key 中，下标为 index 的元素
 	 * @param key
-	 * @param index
-	 * @return String
+	 * @param count
+	 * @param value
+	 * @return long
 	 */
-	public String lindex(String key, long index) {
-		try {
-			if (isCluster)
-				return jc.lindex(key, index);
-			else
-				return lindexSingle(key, index);
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return lindex(key, index);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return null;
+	public long lrem(final String key, final int count, final String value) {
+		return executeOnce("lrem", c -> c.lrem(key, count, value), j -> j.lrem(key, count, value));
+	}
+
+	/**
+	 * List（列表）
+	 * 返回列表 key 中指定区间内的元素，区间以偏移量 start 和 stop 指定。
+	 * @param key
+	 * @param start
+	 * @param end
+	 * @return
+	 */
+	public List<String> lrange(final String key, final long start, final long end) {
+		return execute("lrange", c -> c.lrange(key, start, end), j -> j.lrange(key, start, end));
 	}
+
 	/**
 	 * List（列表）
 	 * 指定队列位置取值
@@ -1668,24 +952,8 @@ public class RedisClient {
 	 * @param index
 	 * @return String
 	 */
-	private String lindexSingle(String key, long index) {
-		try {
-			String value = null;
-			Jedis jedis = getResource();
-			value = jedis.lindex(key, index);
-			returnResource(jedis);
-
-			return value;
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return lindexSingle(key, index);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return null;
+	public String lindex(final String key, final long index) {
+		return execute("lindex", c -> c.lindex(key, index), j -> j.lindex(key, index));
 	}
 
 	/**
@@ -1696,21 +964,12 @@ public class RedisClient {
 	 * @return boolean
 	 */
 	public boolean isExistInList(String key, String value) {
-		try {
-			List<String> l = lrange(key, 0, -1);
-			for (String e : l) {
-				if (e.equals(value))
-					return true;
-			}
+		List<String> l = lrange(key, 0, -1);
+		if (l == null)
 			return false;
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return isExistInList(key, value);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
+		for (String e : l) {
+			if (e.equals(value))
+				return true;
 		}
 		return false;
 	}
@@ -1723,28 +982,9 @@ public class RedisClient {
 	 * @return long
 	 */
 	public long lpushUnique(String key, String val) {
-		try {
-			long res = 0l;
-			if (isCluster) {
-				if (!isExistInList(key, val)) {
-					res = jc.lpush(key, val);
-				}
-			} else {
-				if (!isExistInList(key, val)) {
-					res = lpushSingle(key, val);
-				}
-			}
-			return res;
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return lpushUnique(key, val);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return 0l;
+		if (isExistInList(key, val))
+			return 0l;
+		return lpush(key, val);
 	}
 
 	/**
@@ -1754,39 +994,8 @@ public class RedisClient {
 	 * @param index
 	 * @param value
 	 */
-	public void lset(String key, long index, String value) {
-		try {
-			if (isCluster)
-				jc.lset(key, index, value);
-			else
-				lsetSingle(key, index, value);
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				lset(key, index, value);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-
-	}
-
-	private void lsetSingle(String key, long index, String value) {
-		try {
-			Jedis jedis = getResource();
-			value = jedis.lset(key, index, value);
-			returnResource(jedis);
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				lsetSingle(key, index, value);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-
+	public void lset(final String key, final long index, final String value) {
+		execute("lset", c -> c.lset(key, index, value), j -> j.lset(key, index, value));
 	}
 
 	/**
@@ -1796,47 +1005,8 @@ public class RedisClient {
 	 * @param vals  需要加入的列表的值
 	 * @return
 	 */
-	public long lpush(String key, String... vals) {
-		try {
-			if (isCluster)
-				return jc.lpush(key, vals);
-			else
-				return lpushSingle(key, vals);
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return lpush(key, vals);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return 0l;
-	}
-	/**
-	 * List（列表）
-	 * 向列表头部加入一个元素
-	 * @param key  需要加入的列表名称
-	 * @param vals  需要加入的列表的值
-	 * @return
-	 */
-	private long lpushSingle(String key, String... vals) {
-		try {
-			long value = 0L;
-			Jedis jedis = getResource();
-			value = jedis.lpush(key, vals);
-			returnResource(jedis);
-			return value;
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return lpushSingle(key, vals);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return 0l;
+	public long lpush(final String key, final String... vals) {
+		return executeOnce("lpush", c -> c.lpush(key, vals), j -> j.lpush(key, vals));
 	}
 
 	/**
@@ -1845,47 +1015,8 @@ public class RedisClient {
 	 * @param key 队列名称
 	 * @return
 	 */
-	public String lpop(String key) {
-		try {
-			if (isCluster)
-				return jc.lpop(key);
-			else
-				return lpopSingle(key);
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return lpop(key);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return null;
-	}
-	/**
-	 * List（列表）
-	 * 从队列头部取出一个元素
-	 * @param key 队列名称
-	 * @return
-	 */
-	private String lpopSingle(String key) {
-		try {
-			String value = null;
-			Jedis jedis = getResource();
-			value = jedis.lpop(key);
-			returnResource(jedis);
-
-			return value;
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return lpopSingle(key);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return null;
+	public String lpop(final String key) {
+		return executeOnce("lpop", c -> c.lpop(key), j -> j.lpop(key));
 	}
 
 	/**
@@ -1895,74 +1026,8 @@ public class RedisClient {
 	 * @param vals 需要加入的元素
 	 * @return
 	 */
-	public long rpush(String key, String... vals) {
-		try {
-
-			if (isCluster)
-				return jc.rpush(key, vals);
-			else
-				return rpushSingle(key, vals);
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return rpush(key, vals);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return 0l;
-	}
-	
-	/**
-	 * List（列表）
-	 * 从队尾加入元素
-	 * @param key  队列名称
-	 * @param vals 需要加入的元素
-	 * @return
-	 */
-	private long rpushSingle(String key, String... vals) {
-		try {
-			long value = 0L;
-			Jedis jedis = getResource();
-			value = jedis.rpush(key, vals);
-			returnResource(jedis);
-
-			return value;
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return rpushSingle(key, vals);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return 0l;
-	}
-
-	/**
-	 *  List（列表）
-	 * 从队尾取出一个元素
-	 * @param key
-	 * @return
-	 */
-	public String rpop(String key) {
-		try {
-			if (isCluster)
-				return jc.rpop(key);
-			else
-				return rpopSingle(key);
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return rpop(key);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return null;
+	public long rpush(final String key, final String... vals) {
+		return executeOnce("rpush", c -> c.rpush(key, vals), j -> j.rpush(key, vals));
 	}
 
 	/**
@@ -1971,25 +1036,8 @@ public class RedisClient {
 	 * @param key
 	 * @return
 	 */
-	private String rpopSingle(String key) {
-		try {
-			String value = null;
-			Jedis jedis = getResource();
-			value = jedis.rpop(key);
-			returnResource(jedis);
-
-			return value;
-
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return rpopSingle(key);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return null;
+	public String rpop(final String key) {
+		return executeOnce("rpop", c -> c.rpop(key), j -> j.rpop(key));
 	}
 
 	/**
@@ -1998,90 +1046,10 @@ public class RedisClient {
 	 * @param key
 	 * @return timeout (秒) timeout==0 一直阻塞,直到有lpush
 	 */
-	public String blpop(String key, int timeout) {
-		try {
-			if (isCluster) {
-				List<String> lstStr = jc.blpop(timeout, key);
-				if (lstStr == null || lstStr.size() <= 0)
-					return null;
-				return lstStr.get(1);
-			} else {
-				return blpopSingle(key, timeout);
-			}
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return blpop(key, timeout);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return null;
-	}
-	/**
-	 * List（列表）
-	 * 从队列头取出一个元素, 阻塞
-	 * @param key
-	 * @return timeout (秒) timeout==0 一直阻塞,直到有lpush
-	 */
-	private String blpopSingle(String key, int timeout) {
-		try {
-			String value = null;
-			Jedis jedis = getResource();
-			List<String> lstStr = jedis.blpop(timeout, key);
-			value = lstStr == null ? null : lstStr.get(1);
-			returnResource(jedis);
-			return value;
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return blpopSingle(key, timeout);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return null;
+	public String blpop(final String key, final int timeout) {
+		return executeOnce("blpop", c -> popped(c.blpop(timeout, key)), j -> popped(j.blpop(timeout, key)));
 	}
-	/**
-	 * List（列表）
-	 * 弹出多个key
-	 * @param timeout
-	 * @param keys
-	 * @return
-	 */
-	public String blpopMutilKey(int timeout, String... keys) {
-		try {
-			if (isCluster) {
-				List<String> lstStr = null;
-				for (String e : keys) {
-					long len = llen(e);
-					if (len <= 0)
-						continue;
-					lstStr = jc.blpop(1, e);
-					if (lstStr != null)
-						break;
-				}
-				if (lstStr == null || lstStr.size() <= 0) {
-					return null;
-				}
-				return lstStr.get(1);
-			} else {
-				return blpopSingleMutilKey(timeout, keys);
-			}
 
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return blpopMutilKey(timeout, keys);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return null;
-	}
 	/**
 	 * List（列表）
 	 * 弹出多个key
@@ -2089,346 +1057,102 @@ public class RedisClient {
 	 * @param keys
 	 * @return
 	 */
-	private String blpopSingleMutilKey(int timeout, String... keys) {
-		try {
-			String value = null;
-			Jedis jedis = getResource();
-			List<String> lstStr = jedis.blpop(timeout, keys);
-			lstStr = null;
-			value = lstStr == null ? null : lstStr.get(1);
-			returnResource(jedis);
-			return value;
-
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return blpopSingleMutilKey(timeout, keys);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
+	public String blpopMutilKey(final int timeout, final String... keys) {
+		return executeOnce("blpop", c -> {
+			for (String e : keys) {
+				if (c.llen(e) <= 0)
+					continue;
+				String value = popped(c.blpop(1, e));
+				if (value != null)
+					return value;
 			}
-		}
-		return null;
+			return null;
+		}, j -> popped(j.blpop(timeout, keys)));
 	}
 
 	/**
 	 * 从队尾取出一个元素, 阻塞
-	 * 
+	 *
 	 * @param key
 	 * @param timeout
 	 *            (秒) timeout==0 一直阻塞,直到有lpush
 	 * @return
 	 */
-	public String brpop(String key, int timeout) {
-		try {
-			if (isCluster) {
-				List<String> lstStr = jc.brpop(timeout, key);
-				if (lstStr == null || lstStr.size() <= 0)
-					return null;
-				return lstStr.get(1);
-			} else {
-				return brpopSingle(key, timeout);
-			}
-
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return brpop(key, timeout);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return null;
-	}
-
-	private String brpopSingle(String key, int timeout) {
-		try {
-			String value = null;
-			Jedis jedis = getResource();
-			List<String> lstStr = jedis.brpop(timeout, key);
-			value = lstStr == null ? null : lstStr.get(1);
-			returnResource(jedis);
-
-			return value;
-
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return brpopSingle(key, timeout);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return null;
+	public String brpop(final String key, final int timeout) {
+		return executeOnce("brpop", c -> popped(c.brpop(timeout, key)), j -> popped(j.brpop(timeout, key)));
 	}
 
-	public String brpopMutilKey(int timeout, String... keys) {
-		try {
-			if (isCluster) {
-				List<String> lstStr = null;
-				for (String e : keys) {
-					long len = llen(e);
-					if (len <= 0)
-						continue;
-					lstStr = jc.brpop(1, e);
-					if (lstStr != null)
-						break;
-				}
-				if (lstStr == null || lstStr.size() <= 0) {
-					return null;
-				}
-				return lstStr.get(1);
-			} else {
-				return brpopSingleMutilKey(timeout, keys);
-			}
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return brpopMutilKey(timeout, keys);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
+	public String brpopMutilKey(final int timeout, final String... keys) {
+		return executeOnce("brpop", c -> {
+			for (String e : keys) {
+				if (c.llen(e) <= 0)
+					continue;
+				String value = popped(c.brpop(1, e));
+				if (value != null)
+					return value;
 			}
-		}
-		return null;
+			return null;
+		}, j -> popped(j.brpop(timeout, keys)));
 	}
 
-	private String brpopSingleMutilKey(int timeout, String... keys) {
-		try {
-			String value = null;
-			Jedis jedis = getResource();
-			List<String> lstStr = jedis.brpop(timeout, keys);
-			value = lstStr == null ? null : lstStr.get(1);
-			returnResource(jedis);
-
-			return value;
-
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return brpopSingleMutilKey(timeout, keys);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return null;
+	/**
+	 * 阻塞弹出命令返回[key, value]，取出value
+	 */
+	private static String popped(List<String> lstStr) {
+		if (lstStr == null || lstStr.size() <= 1)
+			return null;
+		return lstStr.get(1);
 	}
 
 	/**
 	 * 队列长度
-	 * 
+	 *
 	 * @param key
 	 * @return
 	 */
-	public long llen(String key) {
-		try {
-			if (isCluster)
-				return jc.llen(key);
-			else
-				return llenSingle(key);
-
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return llen(key);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return 0l;
-	}
-
-	private long llenSingle(String key) {
-
-		try {
-			long value = 0;
-			Jedis jedis = getResource();
-			value = jedis.llen(key);
-			returnResource(jedis);
-
-			return value;
-
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return llenSingle(key);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return 0l;
+	public long llen(final String key) {
+		return execute("llen", c -> c.llen(key), j -> j.llen(key));
 	}
 
 	/**
 	 * 判断一个指定成员是否在队列中
-	 * 
+	 *
 	 * @param key
 	 * @param member
 	 * @return
 	 */
-	public boolean sismember(String key, String member) {
-		try {
-			if (isCluster)
-				return jc.sismember(key, member);
-			else {
-				boolean value = false;
-				Jedis jedis = getResource();
-				value = jedis.sismember(key, member);
-				returnResource(jedis);
-				return value;
-			}
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return sismember(key, member);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return false;
+	public boolean sismember(final String key, final String member) {
+		return execute("sismember", c -> c.sismember(key, member), j -> j.sismember(key, member));
 	}
 
 	/**
 	 * 获取一个集合中的所有元素
-	 * 
+	 *
 	 * @param key
 	 * @return
 	 */
-	public Set<String> smembers(String key) {
-		try {
-			if (isCluster)
-				return jc.smembers(key);
-			else
-				return smembersSingle(key);
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return smembers(key);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return null;
-	}
-
-	private Set<String> smembersSingle(String key) {
-		try {
-			Set<String> value = null;
-			Jedis jedis = getResource();
-			value = jedis.smembers(key);
-			returnResource(jedis);
-
-			return value;
-
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return smembersSingle(key);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return null;
+	public Set<String> smembers(final String key) {
+		return execute("smembers", c -> c.smembers(key), j -> j.smembers(key));
 	}
 
 	/**
 	 * 获取某一个哈希中的所有值
-	 * 
+	 *
 	 * @param key
 	 * @return
 	 */
-	public List<String> hvals(String key) {
-		try {
-			if (isCluster)
-				return jc.hvals(key);
-			else
-				return hvalsSingle(key);
-
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return hvals(key);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return null;
-	}
-
-	private List<String> hvalsSingle(String key) {
-		try {
-			List<String> value = null;
-			Jedis jedis = getResource();
-			value = jedis.hvals(key);
-			returnResource(jedis);
-
-			return value;
-
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return hvalsSingle(key);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return null;
+	public List<String> hvals(final String key) {
+		return execute("hvals", c -> c.hvals(key), j -> j.hvals(key));
 	}
 
 	/**
 	 * 获取某一个哈希中的所有键
-	 * 
+	 *
 	 * @param key
 	 * @return
 	 */
-	public Set<String> hkeys(String key) {
-		try {
-			if (isCluster)
-				return jc.hkeys(key);
-			else
-				return hkeysSingle(key);
-
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return hkeys(key);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return null;
-	}
-
-	private Set<String> hkeysSingle(String key) {
-		try {
-			Set<String> value = null;
-			Jedis jedis = getResource();
-			value = jedis.hkeys(key);
-			returnResource(jedis);
-
-			return value;
-
-		} catch (Exception e) {
-			Log4jManager.logError(e);
-			try {
-				Thread.currentThread().sleep(errorWaitTimeout);
-				return hkeysSingle(key);
-			} catch (InterruptedException e1) {
-				e1.printStackTrace();
-			}
-		}
-		return null;
+	public Set<String> hkeys(final String key) {
+		return execute("hkeys", c -> c.hkeys(key), j -> j.hkeys(key));
 	}
 
 }
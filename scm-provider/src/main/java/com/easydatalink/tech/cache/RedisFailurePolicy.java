@@ -0,0 +1,35 @@
+package com.easydatalink.tech.cache;
+
+/**
+ * RedisClient访问失败时的处理策略：决定是否放行请求(熔断)以及失败后是否重试、等待多久
+ */
+public interface RedisFailurePolicy {
+
+	/**
+	 * 是否放行本次调用，熔断打开期间返回false，调用方直接快速失败
+	 *
+	 * @return boolean
+	 */
+	boolean allowRequest();
+
+	/**
+	 * 第attempt次(从1开始)连接失败后，返回下一次重试前的等待毫秒数
+	 *
+	 * @param attempt
+	 * @param e
+	 * @return 等待毫秒数，负数表示不再重试
+	 */
+	long retryDelay(int attempt, Exception e);
+
+	/**
+	 * 调用成功(redis有响应)
+	 */
+	void onSuccess();
+
+	/**
+	 * 调用因连接问题失败
+	 *
+	 * @param e
+	 */
+	void onFailure(Exception e);
+}
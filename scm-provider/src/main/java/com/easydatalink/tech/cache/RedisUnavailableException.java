@@ -0,0 +1,17 @@
+package com.easydatalink.tech.cache;
+
+/**
+ * redis不可用：熔断打开或重试耗尽
+ */
+public class RedisUnavailableException extends RuntimeException {
+
+	private static final long serialVersionUID = -2915372106238405124L;
+
+	public RedisUnavailableException(String message) {
+		super(message);
+	}
+
+	public RedisUnavailableException(String message, Throwable cause) {
+		super(message, cause);
+	}
+}
@@ -0,0 +1,70 @@
+package com.easydatalink.tech.cache;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 通知服务调用方(如scm-web)的Feign响应缓存失效，通过redis pub/sub发布到feign.cache.channel<br/>
+ * 消息格式：缓存名\nkey1\nkey2...，只有缓存名表示清空该缓存；在事务中调用时提交后才发布，避免调用方读到未提交前的旧值
+ */
+@Component
+public class RemoteCacheInvalidator {
+
+	private Log log = LogFactory.getLog(RemoteCacheInvalidator.class);
+
+	private static final String SEPARATOR = "\n";
+
+	@Value("${feign.cache.channel:scm:feign-cache:invalidate}")
+	private String channel;
+
+	@Autowired
+	private RedisClient redisClient;
+
+	/**
+	 * 失效调用方缓存中的指定key
+	 *
+	 * @param cache 缓存名，对应调用方@FeignCache的name
+	 * @param keys
+	 */
+	public void invalidate(String cache, String... keys) {
+		if (keys == null || keys.length == 0)
+			return;
+		publish(cache + SEPARATOR + StringUtils.join(keys, SEPARATOR));
+	}
+
+	/**
+	 * 清空调用方的整个缓存
+	 *
+	 * @param cache
+	 */
+	public void invalidateAll(String cache) {
+		publish(cache);
+	}
+
+	private void publish(final String message) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCommit() {
+					doPublish(message);
+				}
+			});
+		} else {
+			doPublish(message);
+		}
+	}
+
+	private void doPublish(String message) {
+		try {
+			redisClient.publish(channel, message);
+		} catch (Exception e) {
+			log.warn("feign cache invalidation publish failed: " + e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package com.easydatalink.tech.config;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.druid.filter.FilterAdapter;
+import com.alibaba.druid.filter.FilterChain;
+import com.alibaba.druid.pool.DruidDataSource;
+import com.alibaba.druid.pool.DruidPooledConnection;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Druid连接池指标，通过actuator(/actuator/metrics)暴露
+ * <p>
+ * 活跃/空闲/等待线程数、等待次数、PreparedStatement缓存命中率，以及作为Druid Filter统计的取连接耗时直方图。
+ */
+public class DruidPoolMetrics extends FilterAdapter implements MeterBinder {
+
+	private final String pool;
+	private final DruidDataSource dataSource;
+	private volatile Timer acquireTimer;
+
+	/**
+	 * 需在连接池init之前创建
+	 */
+	public DruidPoolMetrics(String pool, DruidDataSource dataSource) {
+		this.pool = pool;
+		this.dataSource = dataSource;
+		dataSource.getProxyFilters().add(this);
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		Tags tags = Tags.of("pool", pool);
+		Gauge.builder("druid.pool.active", dataSource, DruidDataSource::getActiveCount).tags(tags)
+				.description("connections in use").register(registry);
+		Gauge.builder("druid.pool.idle", dataSource, DruidDataSource::getPoolingCount).tags(tags)
+				.description("idle connections").register(registry);
+		Gauge.builder("druid.pool.max", dataSource, DruidDataSource::getMaxActive).tags(tags).register(registry);
+		Gauge.builder("druid.pool.waiting", dataSource, DruidDataSource::getWaitThreadCount).tags(tags)
+				.description("threads waiting for a connection").register(registry);
+		FunctionCounter.builder("druid.pool.wait.count", dataSource, DruidDataSource::getNotEmptyWaitCount).tags(tags)
+				.register(registry);
+		FunctionCounter.builder("druid.pool.connect.errors", dataSource, DruidDataSource::getConnectErrorCount).tags(tags)
+				.register(registry);
+		FunctionCounter.builder("druid.pool.ps.cache.hits", dataSource, DruidDataSource::getCachedPreparedStatementHitCount)
+				.tags(tags).register(registry);
+		FunctionCounter.builder("druid.pool.ps.cache.misses", dataSource, DruidDataSource::getCachedPreparedStatementMissCount)
+				.tags(tags).register(registry);
+		Gauge.builder("druid.pool.ps.cache.hit.ratio", dataSource, DruidPoolMetrics::psCacheHitRatio).tags(tags)
+				.register(registry);
+		acquireTimer = Timer.builder("druid.pool.acquire").tags(tags).description("time to get a pooled connection")
+				.publishPercentileHistogram().register(registry);
+	}
+
+	@Override
+	public DruidPooledConnection dataSource_getConnection(FilterChain chain, DruidDataSource dataSource, long maxWaitMillis)
+			throws SQLException {
+		Timer timer = acquireTimer;
+		if (timer == null)
+			return chain.dataSource_connect(dataSource, maxWaitMillis);
+		long start = System.nanoTime();
+		try {
+			return chain.dataSource_connect(dataSource, maxWaitMillis);
+		} finally {
+			timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	private static double psCacheHitRatio(DruidDataSource ds) {
+		long hits = ds.getCachedPreparedStatementHitCount();
+		long total = hits + ds.getCachedPreparedStatementMissCount();
+		return total == 0 ? 0 : (double) hits / total;
+	}
+}
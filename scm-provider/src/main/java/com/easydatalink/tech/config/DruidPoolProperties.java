@@ -0,0 +1,420 @@
+package com.easydatalink.tech.config;
+
+import java.sql.Driver;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import com.alibaba.druid.pool.DruidDataSource;
+
+/**
+ * Druid连接池配置，绑定spring.datasource.*
+ * <p>
+ * replicas[n]为从库配置，未配置的项沿用主库；启动时校验，配置错误直接启动失败。
+ */
+@ConfigurationProperties(prefix = "spring.datasource")
+public class DruidPoolProperties {
+
+	private String url;
+	private String username;
+	private String password;
+	private String driverClassName;
+	private String filters;
+	private String connectionProperties;
+	private Integer initialSize;
+	private Integer maxActive;
+	private Integer minIdle;
+	private Long maxWait;
+	private Long timeBetweenEvictionRunsMillis;
+	private Long minEvictableIdleTimeMillis;
+	private Long maxEvictableIdleTimeMillis;
+	private Long phyTimeoutMillis;
+	private String validationQuery;
+	private Integer validationQueryTimeout;
+	private Boolean testWhileIdle;
+	private Boolean testOnBorrow;
+	private Boolean testOnReturn;
+	private Boolean keepAlive;
+	private Boolean poolPreparedStatements;
+	private Integer maxOpenPreparedStatements;
+	private Integer queryTimeout;
+	private Integer transactionQueryTimeout;
+	private Boolean defaultAutoCommit;
+	private Boolean removeAbandoned;
+	private Integer removeAbandonedTimeout;
+	private Boolean logAbandoned;
+
+	private List<DruidPoolProperties> replicas = new ArrayList<DruidPoolProperties>();
+
+	/**
+	 * 校验并创建连接池(未init)，parent为null表示主库
+	 */
+	public DruidDataSource createDataSource(DruidPoolProperties parent) throws SQLException {
+		DruidPoolProperties p = parent == null ? this : merge(parent);
+		p.validate();
+		DruidDataSource ds = new DruidDataSource();
+		ds.setUrl(p.url);
+		ds.setUsername(p.username);
+		ds.setPassword(p.password);
+		if (p.driverClassName != null)
+			ds.setDriverClassName(p.driverClassName);
+		if (p.filters != null)
+			ds.setFilters(p.filters);
+		if (p.connectionProperties != null)
+			ds.setConnectionProperties(p.connectionProperties);
+		if (p.initialSize != null)
+			ds.setInitialSize(p.initialSize);
+		if (p.maxActive != null)
+			ds.setMaxActive(p.maxActive);
+		if (p.minIdle != null)
+			ds.setMinIdle(p.minIdle);
+		if (p.maxWait != null)
+			ds.setMaxWait(p.maxWait);
+		if (p.timeBetweenEvictionRunsMillis != null)
+			ds.setTimeBetweenEvictionRunsMillis(p.timeBetweenEvictionRunsMillis);
+		if (p.minEvictableIdleTimeMillis != null)
+			ds.setMinEvictableIdleTimeMillis(p.minEvictableIdleTimeMillis);
+		if (p.maxEvictableIdleTimeMillis != null)
+			ds.setMaxEvictableIdleTimeMillis(p.maxEvictableIdleTimeMillis);
+		if (p.phyTimeoutMillis != null)
+			ds.setPhyTimeoutMillis(p.phyTimeoutMillis);
+		if (p.validationQuery != null)
+			ds.setValidationQuery(p.validationQuery);
+		if (p.validationQueryTimeout != null)
+			ds.setValidationQueryTimeout(p.validationQueryTimeout);
+		if (p.testWhileIdle != null)
+			ds.setTestWhileIdle(p.testWhileIdle);
+		if (p.testOnBorrow != null)
+			ds.setTestOnBorrow(p.testOnBorrow);
+		if (p.testOnReturn != null)
+			ds.setTestOnReturn(p.testOnReturn);
+		if (p.keepAlive != null)
+			ds.setKeepAlive(p.keepAlive);
+		if (p.poolPreparedStatements != null)
+			ds.setPoolPreparedStatements(p.poolPreparedStatements);
+		if (p.maxOpenPreparedStatements != null)
+			ds.setMaxPoolPreparedStatementPerConnectionSize(p.maxOpenPreparedStatements);
+		if (p.queryTimeout != null)
+			ds.setQueryTimeout(p.queryTimeout);
+		if (p.transactionQueryTimeout != null)
+			ds.setTransactionQueryTimeout(p.transactionQueryTimeout);
+		if (p.defaultAutoCommit != null)
+			ds.setDefaultAutoCommit(p.defaultAutoCommit);
+		if (p.removeAbandoned != null)
+			ds.setRemoveAbandoned(p.removeAbandoned);
+		if (p.removeAbandonedTimeout != null)
+			ds.setRemoveAbandonedTimeout(p.removeAbandonedTimeout);
+		if (p.logAbandoned != null)
+			ds.setLogAbandoned(p.logAbandoned);
+		return ds;
+	}
+
+	/**
+	 * 校验配置，不合法抛IllegalStateException
+	 */
+	public void validate() {
+		List<String> errors = new ArrayList<String>();
+		if (url == null || url.trim().isEmpty())
+			errors.add("url is required");
+		int max = maxActive == null ? DruidDataSource.DEFAULT_MAX_ACTIVE_SIZE : maxActive;
+		if (max <= 0)
+			errors.add("maxActive must be > 0");
+		if (minIdle != null && minIdle > max)
+			errors.add("minIdle(" + minIdle + ") > maxActive(" + max + ")");
+		if (initialSize != null && initialSize > max)
+			errors.add("initialSize(" + initialSize + ") > maxActive(" + max + ")");
+		if (Boolean.TRUE.equals(poolPreparedStatements) && maxOpenPreparedStatements != null && maxOpenPreparedStatements <= 0)
+			errors.add("maxOpenPreparedStatements must be > 0 when poolPreparedStatements=true");
+		if ((Boolean.TRUE.equals(testWhileIdle) || Boolean.TRUE.equals(testOnBorrow) || Boolean.TRUE.equals(testOnReturn))
+				&& (validationQuery == null || validationQuery.trim().isEmpty()))
+			errors.add("validationQuery is required when testWhileIdle/testOnBorrow/testOnReturn is enabled");
+		if (minEvictableIdleTimeMillis != null && maxEvictableIdleTimeMillis != null
+				&& minEvictableIdleTimeMillis > maxEvictableIdleTimeMillis)
+			errors.add("minEvictableIdleTimeMillis > maxEvictableIdleTimeMillis");
+		if (driverClassName != null && url != null) {
+			try {
+				Driver driver = (Driver) Class.forName(driverClassName).newInstance();
+				if (!driver.acceptsURL(url))
+					errors.add("driver " + driverClassName + " does not accept url " + url);
+			} catch (Exception e) {
+				errors.add("cannot load driver " + driverClassName + ": " + e);
+			}
+		}
+		if (!errors.isEmpty())
+			throw new IllegalStateException("invalid datasource config " + url + ": " + errors);
+	}
+
+	/**
+	 * 未配置的项取parent的值
+	 */
+	private DruidPoolProperties merge(DruidPoolProperties parent) {
+		DruidPoolProperties p = new DruidPoolProperties();
+		p.url = pick(url, parent.url);
+		p.username = pick(username, parent.username);
+		p.password = pick(password, parent.password);
+		p.driverClassName = pick(driverClassName, parent.driverClassName);
+		p.filters = pick(filters, parent.filters);
+		p.connectionProperties = pick(connectionProperties, parent.connectionProperties);
+		p.initialSize = pick(initialSize, parent.initialSize);
+		p.maxActive = pick(maxActive, parent.maxActive);
+		p.minIdle = pick(minIdle, parent.minIdle);
+		p.maxWait = pick(maxWait, parent.maxWait);
+		p.timeBetweenEvictionRunsMillis = pick(timeBetweenEvictionRunsMillis, parent.timeBetweenEvictionRunsMillis);
+		p.minEvictableIdleTimeMillis = pick(minEvictableIdleTimeMillis, parent.minEvictableIdleTimeMillis);
+		p.maxEvictableIdleTimeMillis = pick(maxEvictableIdleTimeMillis, parent.maxEvictableIdleTimeMillis);
+		p.phyTimeoutMillis = pick(phyTimeoutMillis, parent.phyTimeoutMillis);
+		p.validationQuery = pick(validationQuery, parent.validationQuery);
+		p.validationQueryTimeout = pick(validationQueryTimeout, parent.validationQueryTimeout);
+		p.testWhileIdle = pick(testWhileIdle, parent.testWhileIdle);
+		p.testOnBorrow = pick(testOnBorrow, parent.testOnBorrow);
+		p.testOnReturn = pick(testOnReturn, parent.testOnReturn);
+		p.keepAlive = pick(keepAlive, parent.keepAlive);
+		p.poolPreparedStatements = pick(poolPreparedStatements, parent.poolPreparedStatements);
+		p.maxOpenPreparedStatements = pick(maxOpenPreparedStatements, parent.maxOpenPreparedStatements);
+		p.queryTimeout = pick(queryTimeout, parent.queryTimeout);
+		p.transactionQueryTimeout = pick(transactionQueryTimeout, parent.transactionQueryTimeout);
+		p.defaultAutoCommit = pick(defaultAutoCommit, parent.defaultAutoCommit);
+		p.removeAbandoned = pick(removeAbandoned, parent.removeAbandoned);
+		p.removeAbandonedTimeout = pick(removeAbandonedTimeout, parent.removeAbandonedTimeout);
+		p.logAbandoned = pick(logAbandoned, parent.logAbandoned);
+		return p;
+	}
+
+	private static <V> V pick(V value, V parentValue) {
+		return value != null ? value : parentValue;
+	}
+
+	public String getUrl() {
+		return url;
+	}
+
+	public void setUrl(String url) {
+		this.url = url;
+	}
+
+	public String getUsername() {
+		return username;
+	}
+
+	public void setUsername(String username) {
+		this.username = username;
+	}
+
+	public String getPassword() {
+		return password;
+	}
+
+	public void setPassword(String password) {
+		this.password = password;
+	}
+
+	public String getDriverClassName() {
+		return driverClassName;
+	}
+
+	public void setDriverClassName(String driverClassName) {
+		this.driverClassName = driverClassName;
+	}
+
+	public String getFilters() {
+		return filters;
+	}
+
+	public void setFilters(String filters) {
+		this.filters = filters;
+	}
+
+	public String getConnectionProperties() {
+		return connectionProperties;
+	}
+
+	public void setConnectionProperties(String connectionProperties) {
+		this.connectionProperties = connectionProperties;
+	}
+
+	public Integer getInitialSize() {
+		return initialSize;
+	}
+
+	public void setInitialSize(Integer initialSize) {
+		this.initialSize = initialSize;
+	}
+
+	public Integer getMaxActive() {
+		return maxActive;
+	}
+
+	public void setMaxActive(Integer maxActive) {
+		this.maxActive = maxActive;
+	}
+
+	public Integer getMinIdle() {
+		return minIdle;
+	}
+
+	public void setMinIdle(Integer minIdle) {
+		this.minIdle = minIdle;
+	}
+
+	public Long getMaxWait() {
+		return maxWait;
+	}
+
+	public void setMaxWait(Long maxWait) {
+		this.maxWait = maxWait;
+	}
+
+	public Long getTimeBetweenEvictionRunsMillis() {
+		return timeBetweenEvictionRunsMillis;
+	}
+
+	public void setTimeBetweenEvictionRunsMillis(Long timeBetweenEvictionRunsMillis) {
+		this.timeBetweenEvictionRunsMillis = timeBetweenEvictionRunsMillis;
+	}
+
+	public Long getMinEvictableIdleTimeMillis() {
+		return minEvictableIdleTimeMillis;
+	}
+
+	public void setMinEvictableIdleTimeMillis(Long minEvictableIdleTimeMillis) {
+		this.minEvictableIdleTimeMillis = minEvictableIdleTimeMillis;
+	}
+
+	public Long getMaxEvictableIdleTimeMillis() {
+		return maxEvictableIdleTimeMillis;
+	}
+
+	public void setMaxEvictableIdleTimeMillis(Long maxEvictableIdleTimeMillis) {
+		this.maxEvictableIdleTimeMillis = maxEvictableIdleTimeMillis;
+	}
+
+	public Long getPhyTimeoutMillis() {
+		return phyTimeoutMillis;
+	}
+
+	public void setPhyTimeoutMillis(Long phyTimeoutMillis) {
+		this.phyTimeoutMillis = phyTimeoutMillis;
+	}
+
+	public String getValidationQuery() {
+		return validationQuery;
+	}
+
+	public void setValidationQuery(String validationQuery) {
+		this.validationQuery = validationQuery;
+	}
+
+	public Integer getValidationQueryTimeout() {
+		return validationQueryTimeout;
+	}
+
+	public void setValidationQueryTimeout(Integer validationQueryTimeout) {
+		this.validationQueryTimeout = validationQueryTimeout;
+	}
+
+	public Boolean getTestWhileIdle() {
+		return testWhileIdle;
+	}
+
+	public void setTestWhileIdle(Boolean testWhileIdle) {
+		this.testWhileIdle = testWhileIdle;
+	}
+
+	public Boolean getTestOnBorrow() {
+		return testOnBorrow;
+	}
+
+	public void setTestOnBorrow(Boolean testOnBorrow) {
+		this.testOnBorrow = testOnBorrow;
+	}
+
+	public Boolean getTestOnReturn() {
+		return testOnReturn;
+	}
+
+	public void setTestOnReturn(Boolean testOnReturn) {
+		this.testOnReturn = testOnReturn;
+	}
+
+	public Boolean getKeepAlive() {
+		return keepAlive;
+	}
+
+	public void setKeepAlive(Boolean keepAlive) {
+		this.keepAlive = keepAlive;
+	}
+
+	public Boolean getPoolPreparedStatements() {
+		return poolPreparedStatements;
+	}
+
+	public void setPoolPreparedStatements(Boolean poolPreparedStatements) {
+		this.poolPreparedStatements = poolPreparedStatements;
+	}
+
+	public Integer getMaxOpenPreparedStatements() {
+		return maxOpenPreparedStatements;
+	}
+
+	public void setMaxOpenPreparedStatements(Integer maxOpenPreparedStatements) {
+		this.maxOpenPreparedStatements = maxOpenPreparedStatements;
+	}
+
+	public Integer getQueryTimeout() {
+		return queryTimeout;
+	}
+
+	public void setQueryTimeout(Integer queryTimeout) {
+		this.queryTimeout = queryTimeout;
+	}
+
+	public Integer getTransactionQueryTimeout() {
+		return transactionQueryTimeout;
+	}
+
+	public void setTransactionQueryTimeout(Integer transactionQueryTimeout) {
+		this.transactionQueryTimeout = transactionQueryTimeout;
+	}
+
+	public Boolean getDefaultAutoCommit() {
+		return defaultAutoCommit;
+	}
+
+	public void setDefaultAutoCommit(Boolean defaultAutoCommit) {
+		this.defaultAutoCommit = defaultAutoCommit;
+	}
+
+	public Boolean getRemoveAbandoned() {
+		return removeAbandoned;
+	}
+
+	public void setRemoveAbandoned(Boolean removeAbandoned) {
+		this.removeAbandoned = removeAbandoned;
+	}
+
+	public Integer getRemoveAbandonedTimeout() {
+		return removeAbandonedTimeout;
+	}
+
+	public void setRemoveAbandonedTimeout(Integer removeAbandonedTimeout) {
+		this.removeAbandonedTimeout = removeAbandonedTimeout;
+	}
+
+	public Boolean getLogAbandoned() {
+		return logAbandoned;
+	}
+
+	public void setLogAbandoned(Boolean logAbandoned) {
+		this.logAbandoned = logAbandoned;
+	}
+
+	public List<DruidPoolProperties> getReplicas() {
+		return replicas;
+	}
+
+	public void setReplicas(List<DruidPoolProperties> replicas) {
+		this.replicas = replicas;
+	}
+}
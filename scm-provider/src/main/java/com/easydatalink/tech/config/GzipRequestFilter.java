@@ -0,0 +1,126 @@
+package com.easydatalink.tech.config;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * 解压Content-Encoding: gzip的请求体(调用方开启了feign.compression.request)
+ * <p>
+ * 解压后去掉Content-Encoding和Content-Length头，后续按普通请求处理。
+ * 解压流只支持阻塞读取(@RequestBody等)：GZIPInputStream读取时会阻塞等待数据，无法配合Servlet 3.1的非阻塞读取，
+ * 对解压后的流调用setReadListener会抛出IllegalStateException。Feign调用方只发送普通的同步请求。
+ */
+public class GzipRequestFilter extends OncePerRequestFilter {
+
+	private static final String CONTENT_ENCODING = "Content-Encoding";
+	private static final String CONTENT_LENGTH = "Content-Length";
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		String encoding = request.getHeader(CONTENT_ENCODING);
+		if (encoding != null && encoding.trim().equalsIgnoreCase("gzip")) {
+			chain.doFilter(new GzipRequest(request), response);
+		} else {
+			chain.doFilter(request, response);
+		}
+	}
+
+	private static class GzipRequest extends HttpServletRequestWrapper {
+
+		private ServletInputStream input;
+
+		GzipRequest(HttpServletRequest request) {
+			super(request);
+		}
+
+		@Override
+		public ServletInputStream getInputStream() throws IOException {
+			if (input == null) {
+				final GZIPInputStream gzip = new GZIPInputStream(getRequest().getInputStream());
+				input = new ServletInputStream() {
+					private boolean finished;
+
+					@Override
+					public int read() throws IOException {
+						int b = gzip.read();
+						finished = b < 0;
+						return b;
+					}
+
+					@Override
+					public int read(byte[] buf, int off, int len) throws IOException {
+						int n = gzip.read(buf, off, len);
+						finished = n < 0;
+						return n;
+					}
+
+					@Override
+					public void close() throws IOException {
+						gzip.close();
+					}
+
+					@Override
+					public boolean isFinished() {
+						return finished;
+					}
+
+					@Override
+					public boolean isReady() {
+						return true;
+					}
+
+					@Override
+					public void setReadListener(ReadListener listener) {
+						throw new IllegalStateException("non-blocking read is not supported on a gzip request body");
+					}
+				};
+			}
+			return input;
+		}
+
+		@Override
+		public int getContentLength() {
+			return -1;
+		}
+
+		@Override
+		public long getContentLengthLong() {
+			return -1;
+		}
+
+		@Override
+		public String getHeader(String name) {
+			return isRemoved(name) ? null : super.getHeader(name);
+		}
+
+		@Override
+		public Enumeration<String> getHeaders(String name) {
+			return isRemoved(name) ? Collections.<String> emptyEnumeration() : super.getHeaders(name);
+		}
+
+		@Override
+		public Enumeration<String> getHeaderNames() {
+			List<String> names = Collections.list(super.getHeaderNames());
+			names.removeIf(GzipRequest::isRemoved);
+			return Collections.enumeration(names);
+		}
+
+		private static boolean isRemoved(String name) {
+			return CONTENT_ENCODING.equalsIgnoreCase(name) || CONTENT_LENGTH.equalsIgnoreCase(name);
+		}
+	}
+}
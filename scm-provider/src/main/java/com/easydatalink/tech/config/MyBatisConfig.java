@@ -1,19 +1,32 @@
 package com.easydatalink.tech.config;
 
-import java.util.Properties;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
+import javax.annotation.PreDestroy;
 import javax.sql.DataSource;
 
+import org.apache.ibatis.plugin.Interceptor;
 import org.apache.ibatis.session.SqlSessionFactory;
 import org.mybatis.spring.SqlSessionFactoryBean;
 import org.mybatis.spring.annotation.MapperScan;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.env.Environment;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
 
-import com.alibaba.druid.pool.DruidDataSourceFactory;
+import com.alibaba.druid.pool.DruidDataSource;
+import com.easydatalink.tech.orm.SqlStatsInterceptor;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
 
 /**
  * @ClassName: MyBatisConfig
@@ -23,28 +36,71 @@ import com.alibaba.druid.pool.DruidDataSourceFactory;
  */
 @Configuration
 @MapperScan(basePackages = "com.easydatalink.tech.mapper")
+@EnableConfigurationProperties(DruidPoolProperties.class)
 public class MyBatisConfig {
 
+	private static Logger logger = LoggerFactory.getLogger(MyBatisConfig.class);
+
 	@Autowired
 	private Environment env;
 
+	@Autowired
+	private DruidPoolProperties poolProperties;
+
+	private ReadWriteRoutingDataSource routingDataSource;
+
+	private final List<DruidPoolMetrics> poolMetrics = new ArrayList<DruidPoolMetrics>();
+
 	/**
-	 * @Title: getDataSource @Description: 创建数据源 @param @return @return
+	 * @Title: getDataSource @Description: 创建数据源，配置了spring.datasource.replicas[n]时只读事务路由到从库 @param @return @return
 	 * DataSource @throws
 	 */
 	@Bean
-	public DataSource getDataSource() {
-		Properties props = new Properties();
-		props.put("driverClass", env.getProperty("spring.datasource.driver-class-name"));
-		props.put("url", env.getProperty("spring.datasource.url"));
-		props.put("username", env.getProperty("spring.datasource.username"));
-		props.put("password", env.getProperty("spring.datasource.password"));
-		try {
-			return DruidDataSourceFactory.createDataSource(props);
-		} catch (Exception e) {
-			e.printStackTrace();
+	public DataSource getDataSource() throws SQLException {
+		DruidDataSource primary = poolProperties.createDataSource(null);
+		poolMetrics.add(new DruidPoolMetrics("primary", primary));
+		primary.init();
+		Map<String, DataSource> replicas = new LinkedHashMap<String, DataSource>();
+		List<DruidPoolProperties> replicaProperties = poolProperties.getReplicas();
+		for (int i = 0; i < replicaProperties.size(); i++) {
+			String name = "replica" + i;
+			DruidDataSource replica = replicaProperties.get(i).createDataSource(poolProperties);
+			poolMetrics.add(new DruidPoolMetrics(name, replica));
+			try {
+				replica.init();
+			} catch (SQLException e) {
+				// 从库不可用不影响启动，由健康检查摘除
+				logger.warn("replica {} init failed: {}", name, e.getMessage());
+			}
+			replicas.put(name, replica);
+		}
+		if (replicas.isEmpty()) {
+			return primary;
+		}
+		routingDataSource = new ReadWriteRoutingDataSource(primary, replicas,
+				env.getProperty("spring.datasource.routing.strategy", ReadWriteRoutingDataSource.STRATEGY_ROUND_ROBIN),
+				env.getProperty("spring.datasource.routing.maxLagSeconds", Long.class, 5L),
+				env.getProperty("spring.datasource.routing.lagQuery"));
+		routingDataSource.start(env.getProperty("spring.datasource.routing.checkIntervalSeconds", Long.class, 5L));
+		// 延迟到第一条语句才取物理连接，此时事务的只读标记已经设置
+		return new LazyConnectionDataSourceProxy(routingDataSource);
+	}
+
+	/**
+	 * 连接池指标，依赖数据源先创建
+	 */
+	@Bean
+	public MeterBinder druidPoolMetrics(DataSource ds) {
+		return registry -> poolMetrics.forEach(m -> m.bindTo(registry));
+	}
+
+	@PreDestroy
+	public void close() {
+		// 未启用读写分离时主库就是DataSource bean，由Spring关闭
+		if (routingDataSource != null) {
+			routingDataSource.close();
+			((DruidDataSource) routingDataSource.getPrimary()).close();
 		}
-		return null;
 	}
 
 	/**
@@ -53,9 +109,10 @@ public class MyBatisConfig {
 	 * Exception @return SqlSessionFactory @throws
 	 */
 	@Bean
-	public SqlSessionFactory sqlSessionFactory(DataSource ds) throws Exception {
+	public SqlSessionFactory sqlSessionFactory(DataSource ds, SqlStatsInterceptor sqlStatsInterceptor) throws Exception {
 		SqlSessionFactoryBean sfb = new SqlSessionFactoryBean();
 		sfb.setDataSource(ds);
+		sfb.setPlugins(new Interceptor[] { sqlStatsInterceptor });
 		// 下边两句仅仅用于*.xml文件，如果整个持久层操作不需要使用到xml文件的话（只用注解就可以搞定），则不加
 		sfb.setTypeAliasesPackage(env.getProperty("mybatis.typeAliasesPackage"));
 		sfb.setMapperLocations(
@@ -0,0 +1,177 @@
+package com.easydatalink.tech.config;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.alibaba.druid.pool.DruidDataSource;
+
+/**
+ * 读写分离数据源：只读事务(@Transactional(readOnly = true))路由到从库，其余走主库
+ * <p>
+ * 从库按轮询(round-robin)或最少活跃连接(least-active)选择；后台定时检查从库可用性及复制延迟，
+ * 不可用或延迟超过maxLagSeconds的从库暂时摘除，没有可用从库时回退主库。
+ * 必须包在LazyConnectionDataSourceProxy中使用，否则事务开始取连接时只读标记尚未设置。
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+	private static Logger logger = LoggerFactory.getLogger(ReadWriteRoutingDataSource.class);
+
+	public static final String PRIMARY = "primary";
+	public static final String STRATEGY_ROUND_ROBIN = "round-robin";
+	public static final String STRATEGY_LEAST_ACTIVE = "least-active";
+
+	private final DataSource primary;
+	private final Map<String, DataSource> replicas;
+	private final String strategy;
+	private final long maxLagSeconds;
+	private final String lagQuery;
+
+	// 当前可用的从库
+	private final Set<String> healthy = ConcurrentHashMap.newKeySet();
+	private volatile List<String> healthyKeys = new ArrayList<String>();
+	private final AtomicInteger counter = new AtomicInteger();
+
+	private ScheduledExecutorService checker;
+
+	/**
+	 * @param primary 主库
+	 * @param replicas 从库，key为名称
+	 * @param strategy round-robin / least-active
+	 * @param maxLagSeconds 允许的最大复制延迟
+	 * @param lagQuery 查询复制延迟(秒)的SQL，为空时只检查连通性；"show slave status"按Seconds_Behind_Master取值，其余取第一行第一列
+	 */
+	public ReadWriteRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, String strategy,
+			long maxLagSeconds, String lagQuery) {
+		this.primary = primary;
+		this.replicas = new LinkedHashMap<String, DataSource>(replicas);
+		this.strategy = strategy;
+		this.maxLagSeconds = maxLagSeconds;
+		this.lagQuery = lagQuery;
+		Map<Object, Object> targets = new HashMap<Object, Object>();
+		targets.put(PRIMARY, primary);
+		targets.putAll(this.replicas);
+		setTargetDataSources(targets);
+		setDefaultTargetDataSource(primary);
+		afterPropertiesSet();
+		healthy.addAll(this.replicas.keySet());
+		healthyKeys = new ArrayList<String>(healthy);
+	}
+
+	/**
+	 * 先同步检查一次从库，再启动定时检查
+	 */
+	public void start(long checkIntervalSeconds) {
+		checkReplicas();
+		checker = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "datasource-replica-checker");
+			t.setDaemon(true);
+			return t;
+		});
+		checker.scheduleWithFixedDelay(this::checkReplicas, checkIntervalSeconds, checkIntervalSeconds, TimeUnit.SECONDS);
+	}
+
+	public void close() {
+		if (checker != null)
+			checker.shutdownNow();
+		for (DataSource ds : replicas.values()) {
+			if (ds instanceof DruidDataSource)
+				((DruidDataSource) ds).close();
+		}
+	}
+
+	public DataSource getPrimary() {
+		return primary;
+	}
+
+	public Map<String, DataSource> getReplicas() {
+		return replicas;
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly())
+			return PRIMARY;
+		String replica = chooseReplica();
+		return replica == null ? PRIMARY : replica;
+	}
+
+	private String chooseReplica() {
+		List<String> keys = healthyKeys;
+		if (keys.isEmpty())
+			return null;
+		if (STRATEGY_LEAST_ACTIVE.equals(strategy)) {
+			String best = null;
+			int bestActive = Integer.MAX_VALUE;
+			for (String key : keys) {
+				DataSource ds = replicas.get(key);
+				int active = ds instanceof DruidDataSource ? ((DruidDataSource) ds).getActiveCount() : 0;
+				if (active < bestActive) {
+					best = key;
+					bestActive = active;
+				}
+			}
+			return best;
+		}
+		return keys.get((counter.getAndIncrement() & Integer.MAX_VALUE) % keys.size());
+	}
+
+	private void checkReplicas() {
+		for (Map.Entry<String, DataSource> e : replicas.entrySet()) {
+			String problem = check(e.getValue());
+			boolean changed = problem == null ? healthy.add(e.getKey()) : healthy.remove(e.getKey());
+			if (changed) {
+				if (problem == null)
+					logger.info("replica {} is back in rotation", e.getKey());
+				else
+					logger.warn("replica {} removed from rotation: {}", e.getKey(), problem);
+			}
+		}
+		List<String> keys = new ArrayList<String>();
+		for (String key : replicas.keySet()) {
+			if (healthy.contains(key))
+				keys.add(key);
+		}
+		healthyKeys = keys;
+	}
+
+	/**
+	 * 检查从库，正常返回null，否则返回原因
+	 */
+	private String check(DataSource ds) {
+		try (Connection conn = ds.getConnection()) {
+			if (lagQuery == null || lagQuery.trim().isEmpty()) {
+				return conn.isValid(5) ? null : "connection invalid";
+			}
+			try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(lagQuery)) {
+				if (!rs.next())
+					return "no replication status";
+				long lag = lagQuery.trim().toLowerCase().startsWith("show slave status") ? rs.getLong("Seconds_Behind_Master")
+						: rs.getLong(1);
+				if (rs.wasNull())
+					return "replication stopped";
+				return lag > maxLagSeconds ? "replication lag " + lag + "s" : null;
+			}
+		} catch (Exception e) {
+			return e.getMessage();
+		}
+	}
+}
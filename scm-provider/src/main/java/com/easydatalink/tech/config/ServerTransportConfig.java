@@ -0,0 +1,64 @@
+package com.easydatalink.tech.config;
+
+import org.apache.coyote.ProtocolHandler;
+import org.apache.coyote.http11.AbstractHttp11Protocol;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * 服务端HTTP传输配置，配合调用方的Feign连接池
+ * <p>
+ * Tomcat默认每个长连接处理100个请求后关闭，调用方连接池会周期性地重新建连，这里放开该限制并设置空闲超时；
+ * 同时解压调用方gzip压缩的请求体。响应压缩见server.compression.*。
+ * <p>
+ * 另注册Smile(二进制JSON，不输出null属性)消息转换器：Accept/Content-Type为application/x-jackson-smile的内部Feign调用走Smile，
+ * 其它调用方仍默认使用JSON。
+ */
+@Configuration
+public class ServerTransportConfig {
+
+	// 每个长连接最多处理的请求数，-1不限
+	@Value("${server.tomcat.maxKeepAliveRequests:-1}")
+	private int maxKeepAliveRequests;
+	// 长连接空闲超时(毫秒)，需大于调用方的空闲回收间隔
+	@Value("${server.tomcat.keepAliveTimeout:60000}")
+	private int keepAliveTimeout;
+
+	@Bean
+	public WebServerFactoryCustomizer<TomcatServletWebServerFactory> tomcatKeepAliveCustomizer() {
+		return factory -> factory.addConnectorCustomizers(connector -> {
+			ProtocolHandler handler = connector.getProtocolHandler();
+			if (handler instanceof AbstractHttp11Protocol) {
+				AbstractHttp11Protocol<?> protocol = (AbstractHttp11Protocol<?>) handler;
+				protocol.setMaxKeepAliveRequests(maxKeepAliveRequests);
+				protocol.setKeepAliveTimeout(keepAliveTimeout);
+			}
+		});
+	}
+
+	/**
+	 * 替换Spring默认的Smile转换器(位置不变，排在JSON之后)
+	 */
+	@Bean
+	public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter() {
+		return new MappingJackson2SmileHttpMessageConverter(
+				Jackson2ObjectMapperBuilder.smile().serializationInclusion(JsonInclude.Include.NON_NULL).build());
+	}
+
+	@Bean
+	public FilterRegistrationBean<GzipRequestFilter> gzipRequestFilter() {
+		FilterRegistrationBean<GzipRequestFilter> registration = new FilterRegistrationBean<GzipRequestFilter>(new GzipRequestFilter());
+		registration.addUrlPatterns("/*");
+		registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+		return registration;
+	}
+}
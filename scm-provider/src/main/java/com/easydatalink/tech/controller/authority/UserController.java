@@ -1,6 +1,9 @@
 package com.easydatalink.tech.controller.authority;
 
+import java.util.List;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -21,4 +24,12 @@ public class UserController {
 		SysUser luser = userManager.findUserByLoginName(loginName);
 		return luser;
 	}
+	
+	/**
+	 * 按登录名批量查询，供scm-web合并并发的findByName请求
+	 */
+	@RequestMapping(value = "/findByNames", method = RequestMethod.POST)
+	public List<SysUser> findByNames(@RequestBody List<String> loginNames) {
+		return userManager.findUsersByLoginNames(loginNames);
+	}
 }
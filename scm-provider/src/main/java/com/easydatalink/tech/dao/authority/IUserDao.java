@@ -1,5 +1,7 @@
 package com.easydatalink.tech.dao.authority;
 
+import java.util.List;
+
 import com.easydatalink.tech.entity.authortity.SysUser;
 import com.easydatalink.tech.orm.IMybatisDao;
 
@@ -7,4 +9,9 @@ public interface IUserDao extends IMybatisDao<SysUser>{
 	
 	public SysUser findUserByLoginName(String name);
 	
+	/**
+	 * 按登录名批量查询，不存在的登录名没有对应结果
+	 */
+	public List<SysUser> findUsersByLoginNames(List<String> names);
+	
 }
\ No newline at end of file
@@ -1,5 +1,9 @@
 package com.easydatalink.tech.dao.authority.impl;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -22,4 +26,12 @@ public class UserDao extends MyBatisDao<SysUser> implements IUserDao {
 		return userMapper.findUserByLoginName(name);
 	}
 	
+	public List<SysUser> findUsersByLoginNames(List<String> names){
+		List<SysUser> users = new ArrayList<SysUser>(names.size());
+		for (List<String> chunk : chunks(new ArrayList<String>(new LinkedHashSet<String>(names)), IN_LIST_LIMIT)) {
+			users.addAll(userMapper.findUsersByLoginNames(chunk));
+		}
+		return users;
+	}
+	
 }
@@ -1,5 +1,9 @@
 package com.easydatalink.tech.mapper.authority;
 
+import java.util.List;
+
+import org.apache.ibatis.annotations.Param;
+
 import com.easydatalink.tech.entity.authortity.SysUser;
 import com.easydatalink.tech.orm.Mapper;
 
@@ -7,4 +11,9 @@ public interface UserMapper extends Mapper<SysUser>{
 	
 	public SysUser findUserByLoginName(String name);
 	
+	/**
+	 * 按登录名批量查询，一条IN查询
+	 */
+	public List<SysUser> findUsersByLoginNames(@Param("names") List<String> names);
+	
 }
\ No newline at end of file
@@ -0,0 +1,115 @@
+package com.easydatalink.tech.orm;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Function;
+
+import com.easydatalink.tech.utils.ClassAccessor;
+
+/**
+ * 把JavaBean的可读属性作为只读Map暴露给MyBatis，取值时才调用getter，不复制属性
+ * <p>
+ * getter由ClassAccessor按类缓存，调用开销接近直接调用。
+ * extra为额外参数(如分页参数)，与属性同名时优先。
+ */
+public class BeanMap extends AbstractMap<String, Object> {
+
+	private final Object bean;
+	private final Map<String, Function<Object, Object>> getters;
+	private final Map<String, ?> extra;
+	private Set<Map.Entry<String, Object>> entrySet;
+
+	public BeanMap(Object bean) {
+		this(bean, Collections.<String, Object> emptyMap());
+	}
+
+	public BeanMap(Object bean, Map<String, ?> extra) {
+		this.bean = bean;
+		this.getters = ClassAccessor.of(bean.getClass()).getPropertyGetters();
+		this.extra = extra;
+	}
+
+	public Object getBean() {
+		return bean;
+	}
+
+	@Override
+	public Object get(Object key) {
+		if (extra.containsKey(key))
+			return extra.get(key);
+		Function<Object, Object> getter = getters.get(key);
+		return getter == null ? null : getter.apply(bean);
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return extra.containsKey(key) || getters.containsKey(key);
+	}
+
+	@Override
+	public int size() {
+		int size = getters.size();
+		for (String key : extra.keySet()) {
+			if (!getters.containsKey(key))
+				size++;
+		}
+		return size;
+	}
+
+	@Override
+	public Set<Map.Entry<String, Object>> entrySet() {
+		if (entrySet == null) {
+			entrySet = new AbstractSet<Map.Entry<String, Object>>() {
+				@Override
+				public Iterator<Map.Entry<String, Object>> iterator() {
+					return new EntryIterator();
+				}
+
+				@Override
+				public int size() {
+					return BeanMap.this.size();
+				}
+			};
+		}
+		return entrySet;
+	}
+
+	/**
+	 * 先遍历属性，再遍历不与属性同名的额外参数
+	 */
+	private class EntryIterator implements Iterator<Map.Entry<String, Object>> {
+		private final Iterator<String> properties = getters.keySet().iterator();
+		private final Iterator<String> extras = extra.keySet().iterator();
+		private String next = advance();
+
+		private String advance() {
+			if (properties.hasNext())
+				return properties.next();
+			while (extras.hasNext()) {
+				String key = extras.next();
+				if (!getters.containsKey(key))
+					return key;
+			}
+			return null;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next != null;
+		}
+
+		@Override
+		public Map.Entry<String, Object> next() {
+			if (next == null)
+				throw new NoSuchElementException();
+			String key = next;
+			next = advance();
+			return new AbstractMap.SimpleImmutableEntry<String, Object>(key, get(key));
+		}
+	}
+}
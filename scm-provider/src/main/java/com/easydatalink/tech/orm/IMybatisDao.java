@@ -2,6 +2,7 @@ package com.easydatalink.tech.orm;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import org.springframework.stereotype.Repository;
 
@@ -36,6 +37,16 @@ public interface IMybatisDao<T extends IdEntity> {
 
     public Object findUnique(final String sql, final Map<String, ?> values);
 
+    /**
+     * 流式查询，逐行交给consumer处理且不在内存中保留结果，用于导出、对账等大结果集场景. 返回处理的行数
+     */
+    public <X> long stream(final String sql, final Map<String, ?> values, Consumer<X> consumer);
+
+    /**
+     * 流式查询，指定JDBC fetchSize
+     */
+    public <X> long stream(final String sql, final Map<String, ?> values, int fetchSize, Consumer<X> consumer);
+
     public void delete(final Long id);
 
     public void delete(final T entity);
@@ -63,6 +74,12 @@ public interface IMybatisDao<T extends IdEntity> {
 
     public <X> Page<X> findPage(final Page<X> page, String sql, final Map<String, ?> values);
 
+    /**
+     * keyset分页：按page.orderField(为空时按id)及id排序，从page.afterValue/afterId之后取一页，不扫描已跳过的记录.
+     * 查询后page.afterValue/afterId更新为本页最后一条记录，供下一页使用；不计算总数
+     */
+    public <X> Page<X> findPageAfter(final Page<X> page, String sql, final Map<String, ?> values);
+
     /**
      * 判断对象的属性值在数据库内是否唯一.
      * 
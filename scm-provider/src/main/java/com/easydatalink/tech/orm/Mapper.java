@@ -1,7 +1,10 @@
 package com.easydatalink.tech.orm;
 
+import java.util.Date;
 import java.util.List;
 
+import org.apache.ibatis.annotations.Param;
+
 import com.easydatalink.tech.entity.IdEntity;
 
 public interface Mapper<T extends IdEntity> {
@@ -59,6 +62,16 @@ public interface Mapper<T extends IdEntity> {
      */
     int updateByPrimaryKey(T record);
     
+    /**
+     * 按主键批量查询，ids长度由调用方控制(Oracle IN列表不超过1000)，结果顺序不保证
+     */
+    List<T> selectByPrimaryKeys(@Param("ids") List<Long> ids);
+
+    /**
+     * 按主键批量逻辑删除(置删除标记并更新最后修改时间)，ids长度由调用方控制
+     */
+    int logicalDeleteByPrimaryKeys(@Param("ids") List<Long> ids, @Param("lastUpdateTime") Date lastUpdateTime);
+    
     List<T> getAll();
     
     void deleteAll();
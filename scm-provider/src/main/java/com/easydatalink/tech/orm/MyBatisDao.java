@@ -1,38 +1,77 @@
 package com.easydatalink.tech.orm;
 
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.ConcurrentModificationException;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
-import org.apache.commons.beanutils.PropertyUtils;
-import org.apache.ibatis.executor.ErrorContext;
-import org.apache.ibatis.executor.ExecutorException;
+import javax.sql.DataSource;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.executor.keygen.SelectKeyGenerator;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.ParameterMapping;
-import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.mapping.SqlSource;
 import org.apache.ibatis.reflection.MetaObject;
-import org.apache.ibatis.reflection.property.PropertyTokenizer;
-import org.apache.ibatis.scripting.xmltags.ForEachSqlNode;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.apache.ibatis.scripting.defaults.RawSqlSource;
 import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
 import org.apache.ibatis.session.SqlSessionFactory;
-import org.apache.ibatis.type.TypeHandler;
-import org.apache.ibatis.type.TypeHandlerRegistry;
 import org.mybatis.spring.support.SqlSessionDaoSupport;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.Assert;
 
 import com.easydatalink.tech.entity.IdEntity;
 import com.easydatalink.tech.page.Page;
 import com.easydatalink.tech.utils.ReflectionUtils;
+import com.easydatalink.tech.utils.StringHelper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 
 
 /**
@@ -48,6 +87,52 @@ public class MyBatisDao<T extends IdEntity> extends SqlSessionDaoSupport impleme
 	protected Class sequenceClass;
 	private static boolean allStatementsBuilt = false;
 	
+	/**
+	 * 可选的多行插入语句(insert ... values (...),(...))，参数为{list: 实体列表}，在mapper xml中定义时batchInsert优先使用；
+	 * 未定义时MySQL由静态的insert语句自动生成多行插入，其它情况使用JDBC批量执行insert
+	 */
+	public static final String INSERT_BATCH_STATEMENT = "insertBatch";
+	
+	// IN列表最大长度(Oracle限制1000)，按主键批量操作时按此分段
+	public static final int IN_LIST_LIMIT = 1000;
+	
+	// 批量写入时每多少条执行一次JDBC批量提交并校验结果
+	@Value("${mybatis.batch.flushSize:500}")
+	private int batchFlushSize = 500;
+	
+	// 流式查询默认的JDBC fetchSize
+	@Value("${mybatis.stream.fetchSize:500}")
+	private int streamFetchSize = 500;
+	
+	// COUNT_CACHED策略的缓存大小及存活期
+	@Value("${mybatis.count.cacheSize:10000}")
+	private int countCacheSize = 10000;
+	@Value("${mybatis.count.cacheSeconds:30}")
+	private int countCacheSeconds = 30;
+	// 是否与分页查询并行执行count
+	@Value("${mybatis.count.concurrent:true}")
+	private boolean concurrentCount = true;
+	
+	private volatile Cache<String, Long> countCache;
+	
+	private static final ExecutorService COUNT_EXECUTOR = new ThreadPoolExecutor(
+			Math.max(4, Runtime.getRuntime().availableProcessors()), Math.max(4, Runtime.getRuntime().availableProcessors()),
+			60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(1000), new ThreadFactory() {
+				private final AtomicInteger seq = new AtomicInteger();
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "page-count-" + seq.incrementAndGet());
+					t.setDaemon(true);
+					return t;
+				}
+			}, new ThreadPoolExecutor.CallerRunsPolicy());
+	
+	private SqlSessionFactory sqlSessionFactory;
+	
+	// 以下在注入SqlSessionFactory时解析一次，之后只读
+	private Class<?> mapperClass;
+	private Mapper<T> mapper;
+	private final ConcurrentMap<String, String> statementNames = new ConcurrentHashMap<String, String>();
+	
 	/**
 	 * 用于Dao层子类使用的构造函数.
 	 * 通过子类的泛型定义取得对象类型Class.
@@ -74,51 +159,62 @@ public class MyBatisDao<T extends IdEntity> extends SqlSessionDaoSupport impleme
 	@Autowired
     public void setSqlSessionFactory(SqlSessionFactory sqlSessionFactory) {
     	super.setSqlSessionFactory(sqlSessionFactory);
+    	this.sqlSessionFactory = sqlSessionFactory;
+    	Configuration configuration = getSqlSession().getConfiguration();
     	// a workaround for Mybatis concurrent bug
-    	synchronized (getSqlSession().getConfiguration()) {
+    	synchronized (configuration) {
 	    	if (!allStatementsBuilt) {
-	    		getSqlSession().getConfiguration().getMappedStatements();
+	    		configuration.getMappedStatements();
 	    		allStatementsBuilt = true;
 	    	}
+	    	// 启动时解析并校验mapper，缺失时应用启动失败而不是在第一次调用时失败
+	    	this.mapperClass = resolveMapperClass(configuration);
+	    	if (!configuration.hasMapper(mapperClass)) {
+	    		throw new IllegalStateException("mapper " + mapperClass.getName() + " for " + entityClass.getName()
+	    				+ " is not registered with MyBatis, check mybatis.mapperLocations and the mapper xml namespace");
+	    	}
     	}
+    	this.mapper = (Mapper<T>) getSqlSession().getMapper(mapperClass);
+    	logger.debug("{} resolved mapper {}", entityClass.getName(), mapperClass.getName());
     }
 
 	public T get(final Long id) {
 		Assert.notNull(id, "id不能为空");
-		Mapper<T> mapper = (Mapper<T>)getMapper(getMapperClass());
+		Mapper<T> mapper = getMapper();
 		T obj = (T)mapper.selectByPrimaryKey(id);
 		return obj;
 	}
 	
 	public T getByCode(final String code) {
 		Assert.notNull(code, "code不能为空");
-		Mapper<T> mapper = (Mapper<T>)getMapper(getMapperClass());
+		Mapper<T> mapper = getMapper();
 		T obj = (T)mapper.getByCode(code);
 		return obj;
 	}
 	
 	@Override
 	public T getByCode(T entity) {
-		Mapper<T> mapper = (Mapper<T>)getMapper(getMapperClass());
+		Mapper<T> mapper = getMapper();
 		T obj = (T)mapper.getByCode(entity);
 		return obj;
 	}
 	
 	@Override
 	public T getCityCode(T entity) {
-		Mapper<T> mapper = (Mapper<T>)getMapper(getMapperClass());
+		Mapper<T> mapper = getMapper();
 		T obj = (T)mapper.getCityCode(entity);
 		return obj;
 	}
 
 	/**
-	 * 逻辑删除
+	 * 逻辑删除，与batchDelete使用同一条语句(置删除标记并更新最后修改时间)
 	 */
 	public void delete(final Long id) {
 		Assert.notNull(id, "id不能为空");
-		T t =get(id);
-		t.setIsRemoved("1");
-		update(t);
+		Mapper<T> mapper = getMapper();
+		if (mapper.logicalDeleteByPrimaryKeys(Collections.singletonList(id), new Date()) == 0) {
+			throw new RuntimeException("mapper.logicalDelete return 0 for:" + mapper.getClass().getName() + ", id=" + id);
+		}
 	}
 	
 	/**
@@ -128,8 +224,8 @@ public class MyBatisDao<T extends IdEntity> extends SqlSessionDaoSupport impleme
 		if (entity == null) {
 			return;
 		}
+		delete(entity.getId());
 		entity.setIsRemoved("1");
-		update(entity);
 	}
 	
 	/**
@@ -137,7 +233,7 @@ public class MyBatisDao<T extends IdEntity> extends SqlSessionDaoSupport impleme
 	 * @param id
 	 */
 	public void deleteComplete(final Long id) {
-		Mapper<T> mapper = (Mapper<T>)getMapper(getMapperClass());
+		Mapper<T> mapper = getMapper();
 		mapper.deleteByPrimaryKey(id);
 	}
 	
@@ -147,7 +243,7 @@ public class MyBatisDao<T extends IdEntity> extends SqlSessionDaoSupport impleme
 	public Long insert(final T entity) {
 		Assert.notNull(entity, "entity不能为空");
 		
-		Mapper<T> mapper = (Mapper<T>)getMapper(getMapperClass());
+		Mapper<T> mapper = getMapper();
 		mapper.insert(entity);
 		return entity.getId();
 	}
@@ -157,7 +253,7 @@ public class MyBatisDao<T extends IdEntity> extends SqlSessionDaoSupport impleme
 	 */
 	public boolean update(final T entity) throws ConcurrentModificationException {
 		//TODO 这里的事务处理有问题，请大家注意
-		Mapper<T> mapper = (Mapper<T>)getMapper(getMapperClass());		
+		Mapper<T> mapper = getMapper();
 		int count = mapper.updateByPrimaryKeySelective(entity);
 		if (count == 0) {
 			IdEntity o = mapper.selectByPrimaryKey(entity.getId());
@@ -170,43 +266,295 @@ public class MyBatisDao<T extends IdEntity> extends SqlSessionDaoSupport impleme
 		return count > 0;
 	}
 	
-	// TODO need a better method
+	/**
+	 * 批量插入. 按flushSize分段执行多行插入(mapper定义的insertBatch，或MySQL下由insert生成)，
+	 * 都不可用时使用JDBC批量执行insert，每flushSize条提交一次批次
+	 */
 	public void batchInsert(List<T> entities) {
-		if (entities != null) {
-			for (T entity: entities) {
-				insert(entity);
+		if (entities == null || entities.isEmpty()) {
+			return;
+		}
+		String insertBatch = getFullSatementName(INSERT_BATCH_STATEMENT);
+		if (!getSqlSession().getConfiguration().hasStatement(insertBatch, false)) {
+			MappedStatement multiRow = multiRowInsertStatement(getFullSatementName("insert"));
+			insertBatch = multiRow == null ? null : multiRow.getId();
+		}
+		if (insertBatch != null) {
+			for (List<T> chunk : chunks(entities)) {
+				getSqlSession().insert(insertBatch, Collections.singletonMap("list", chunk));
+			}
+			return;
+		}
+		String statement = getFullSatementName("insert");
+		SqlSession session = openBatchSession();
+		try {
+			for (List<T> chunk : chunks(entities)) {
+				for (T entity : chunk) {
+					session.insert(statement, entity);
+				}
+				session.flushStatements();
+			}
+			session.commit();
+		} finally {
+			session.close();
+		}
+	}
+	
+	/**
+	 * 批量更新. 使用JDBC批量执行updateByPrimaryKeySelective，每flushSize条提交一次批次并按返回的更新行数校验乐观锁，
+	 * 某条记录更新0行时抛出ConcurrentModificationException(批次中其余记录随事务回滚)
+	 */
+	public void batchUpdate(List<T> entities) throws ConcurrentModificationException {
+		if (entities == null || entities.isEmpty()) {
+			return;
+		}
+		String statement = getFullSatementName("updateByPrimaryKeySelective");
+		SqlSession session = openBatchSession();
+		try {
+			for (List<T> chunk : chunks(entities)) {
+				for (T entity : chunk) {
+					session.update(statement, entity);
+				}
+				verifyUpdateCounts(session.flushStatements());
+			}
+			session.commit();
+		} finally {
+			session.close();
+		}
+	}
+	
+	/**
+	 * 直接由SqlSessionFactory打开BATCH会话：存在Spring事务时通过SpringManagedTransaction复用事务连接，commit/close不会提交或归还连接；
+	 * 无事务时使用独立连接，由调用方commit
+	 */
+	private SqlSession openBatchSession() {
+		return sqlSessionFactory.openSession(ExecutorType.BATCH);
+	}
+	
+	private void verifyUpdateCounts(List<BatchResult> results) {
+		List<T> unknown = new ArrayList<T>();
+		for (BatchResult result : results) {
+			int[] counts = result.getUpdateCounts();
+			List<Object> parameters = result.getParameterObjects();
+			for (int i = 0; i < counts.length; i++) {
+				if (counts[i] > 0) {
+					continue;
+				}
+				// 部分驱动(如旧版Oracle)批量执行不返回行数，之后按主键重新核对
+				if (counts[i] == Statement.SUCCESS_NO_INFO) {
+					unknown.add((T) parameters.get(i));
+					continue;
+				}
+				T entity = (T) parameters.get(i);
+				Mapper<T> mapper = getMapper();
+				IdEntity o = mapper.selectByPrimaryKey(entity.getId());
+				Long version = o == null ? null : o.getVersion();
+				if (!Objects.equals(version, entity.getVersion())) {
+					throw new ConcurrentModificationException(mapper.getClass().getName() + ", Stale data: version="+entity.getVersion()+", version in db="+version);
+				}
+				throw new RuntimeException("batch update return 0 for:"+ result.getMappedStatement().getId() + ", id=" + entity.getId());
+			}
+		}
+		if (!unknown.isEmpty()) {
+			verifyVersions(unknown);
+		}
+	}
+	
+	/**
+	 * 驱动未返回更新行数时核对记录仍存在且版本与实体一致，否则与更新0行同样处理
+	 */
+	private void verifyVersions(List<T> entities) {
+		Mapper<T> mapper = getMapper();
+		Map<Long, Long> versions = new HashMap<Long, Long>();
+		List<Long> ids = new ArrayList<Long>(entities.size());
+		for (T entity : entities) {
+			ids.add(entity.getId());
+		}
+		for (List<Long> chunk : chunks(distinctIds(ids), IN_LIST_LIMIT)) {
+			for (T o : mapper.selectByPrimaryKeys(chunk)) {
+				versions.put(o.getId(), o.getVersion());
+			}
+		}
+		for (T entity : entities) {
+			if (!versions.containsKey(entity.getId())) {
+				throw new RuntimeException("batch update found no row for:"+ mapper.getClass().getName() + ", id=" + entity.getId());
+			}
+			Long version = versions.get(entity.getId());
+			if (!Objects.equals(version, entity.getVersion())) {
+				throw new ConcurrentModificationException(mapper.getClass().getName() + ", Stale data: version="+entity.getVersion()+", version in db="+version);
+			}
+		}
+	}
+	
+	/**
+	 * MySQL下由静态insert语句生成的多行插入语句(id为 原id!multiRow)，参数为{list: 实体列表}；
+	 * 非MySQL、动态SQL、selectKey主键或不是insert ... values (...)形式时返回null
+	 */
+	private MappedStatement multiRowInsertStatement(String statementName) {
+		Configuration configuration = getSqlSession().getConfiguration();
+		if (!getDialect().contains("mysql") || !configuration.hasStatement(statementName, false)) {
+			return null;
+		}
+		final MappedStatement ms = configuration.getMappedStatement(statementName, false);
+		if (!(ms.getSqlSource() instanceof RawSqlSource || ms.getSqlSource() instanceof StaticSqlSource)
+				|| ms.getKeyGenerator() instanceof SelectKeyGenerator
+				|| valuesMatcher(ms.getBoundSql(null).getSql()) == null) {
+			return null;
+		}
+		final String multiRowId = ms.getId() + "!multiRow";
+		return derivedStatement(multiRowId, () -> copyStatement(ms, multiRowId, new MultiRowInsertSqlSource(ms)).build());
+	}
+	
+	private static final Pattern INSERT_VALUES = Pattern.compile("(?is)^(\\s*insert\\s.*?\\bvalues\\s*)(\\(.*\\))\\s*$");
+	
+	/**
+	 * 匹配insert ... values (...)，VALUES后只能是一个括号组(排除on duplicate key update等后缀)，不匹配时返回null
+	 */
+	private static Matcher valuesMatcher(String sql) {
+		Matcher m = INSERT_VALUES.matcher(sql);
+		if (!m.matches()) {
+			return null;
+		}
+		String tuple = m.group(2);
+		int depth = 0;
+		boolean quoted = false;
+		for (int i = 0; i < tuple.length(); i++) {
+			char c = tuple.charAt(i);
+			if (c == '\'') {
+				quoted = !quoted;
+			} else if (!quoted && c == '(') {
+				depth++;
+			} else if (!quoted && c == ')' && --depth == 0 && i < tuple.length() - 1) {
+				return null;
 			}
 		}
+		return m;
 	}
 	
-	// TODO need a better method
-	public void batchUpdate(List<T> entities) {
-		if (entities != null) {
-			for (T entity: entities) {
-				update(entity);
+	/**
+	 * 将单行insert ... values (?, ...)按参数{list: 实体列表}展开为 values (?, ...),(?, ...)，
+	 * 每行的参数值预先按DefaultParameterHandler的规则取出，作为附加参数绑定
+	 */
+	private static class MultiRowInsertSqlSource implements SqlSource {
+		private final MappedStatement ms;
+		
+		MultiRowInsertSqlSource(MappedStatement ms) {
+			this.ms = ms;
+		}
+		
+		@Override
+		public BoundSql getBoundSql(Object parameterObject) {
+			Configuration configuration = ms.getConfiguration();
+			List<?> rows = (List<?>) ((Map<?, ?>) parameterObject).get("list");
+			StringBuilder sql = new StringBuilder();
+			List<ParameterMapping> mappings = new ArrayList<ParameterMapping>();
+			Map<String, Object> values = new HashMap<String, Object>();
+			for (int i = 0; i < rows.size(); i++) {
+				Object row = rows.get(i);
+				BoundSql origin = ms.getBoundSql(row);
+				Matcher m = valuesMatcher(origin.getSql());
+				if (m == null) {
+					throw new IllegalStateException("not an insert ... values statement: " + ms.getId());
+				}
+				sql.append(i == 0 ? m.group(1) : ", ").append(m.group(2));
+				MetaObject metaObject = null;
+				int j = 0;
+				for (ParameterMapping pm : origin.getParameterMappings()) {
+					String property = pm.getProperty();
+					Object value;
+					if (origin.hasAdditionalParameter(property)) {
+						value = origin.getAdditionalParameter(property);
+					} else if (row == null) {
+						value = null;
+					} else if (configuration.getTypeHandlerRegistry().hasTypeHandler(row.getClass())) {
+						value = row;
+					} else {
+						if (metaObject == null) {
+							metaObject = configuration.newMetaObject(row);
+						}
+						value = metaObject.getValue(property);
+					}
+					String name = "_row" + i + "_" + j++;
+					values.put(name, value);
+					mappings.add(new ParameterMapping.Builder(configuration, name, pm.getTypeHandler())
+							.javaType(pm.getJavaType()).jdbcType(pm.getJdbcType()).numericScale(pm.getNumericScale()).build());
+				}
 			}
+			BoundSql boundSql = new BoundSql(configuration, sql.toString(), mappings, parameterObject);
+			for (Map.Entry<String, Object> e : values.entrySet()) {
+				boundSql.setAdditionalParameter(e.getKey(), e.getValue());
+			}
+			return boundSql;
+		}
+	}
+	
+	private <X> List<List<X>> chunks(List<X> list) {
+		return chunks(list, batchFlushSize > 0 ? batchFlushSize : 500);
+	}
+	
+	protected static <X> List<List<X>> chunks(List<X> list, int size) {
+		List<List<X>> chunks = new ArrayList<List<X>>((list.size() + size - 1) / size);
+		for (int from = 0; from < list.size(); from += size) {
+			chunks.add(list.subList(from, Math.min(from + size, list.size())));
 		}
+		return chunks;
 	}
 	
+	/**
+	 * 批量逻辑删除，每IN_LIST_LIMIT个id一条update语句，效果与逐个delete(id)相同(不存在的id忽略)
+	 */
 	@Override
 	public void batchDelete(List<Long> ids) {
-		if (ids != null) {
-			for (Long id : ids) {
-				delete(id);
-			}
+		if (ids == null || ids.isEmpty()) {
+			return;
+		}
+		Mapper<T> mapper = getMapper();
+		Date now = new Date();
+		for (List<Long> chunk : chunks(distinctIds(ids), IN_LIST_LIMIT)) {
+			mapper.logicalDeleteByPrimaryKeys(chunk, now);
 		}
 	}
 
 	private Class<?> getMapperClass() {
-		Class<?> mapperClass = null;
+		return mapperClass;
+	}
+	
+	/**
+	 * 按约定(entity包替换为mapper包，类名加Mapper后缀)查找mapper，找不到时在已注册的mapper中查找唯一的Mapper&lt;实体类&gt;
+	 */
+	private Class<?> resolveMapperClass(Configuration configuration) {
+		String mapperCls = entityClass.getName().replace("entity", "mapper")+"Mapper";
 		try {
-			String mapperCls = entityClass.getName().replace("entity", "mapper")+"Mapper";
-			mapperClass = Class.forName(mapperCls);
-			return mapperClass;
+			return Class.forName(mapperCls);
 		} catch (ClassNotFoundException e) {
-			e.printStackTrace();
-			throw new RuntimeException(e.toString());
+			// 按实体泛型匹配
+		}
+		Class<?> found = null;
+		for (Class<?> registered : configuration.getMapperRegistry().getMappers()) {
+			if (!isMapperOf(registered)) {
+				continue;
+			}
+			if (found != null) {
+				throw new IllegalStateException("more than one mapper for " + entityClass.getName() + ": "
+						+ found.getName() + ", " + registered.getName());
+			}
+			found = registered;
+		}
+		if (found == null) {
+			throw new IllegalStateException("no mapper found for " + entityClass.getName() + ", expected " + mapperCls
+					+ " or a registered interface extending Mapper<" + entityClass.getSimpleName() + ">");
 		}
+		return found;
+	}
+	
+	private boolean isMapperOf(Class<?> type) {
+		for (Type t : type.getGenericInterfaces()) {
+			if (t instanceof ParameterizedType && ((ParameterizedType) t).getRawType() == Mapper.class
+					&& ((ParameterizedType) t).getActualTypeArguments()[0] == entityClass) {
+				return true;
+			}
+		}
+		return false;
 	}
 	
 	public <X> Page<X> findPage(final Page<X> page, String statementName, final Map<String, ?> values) {
@@ -217,80 +565,327 @@ public class MyBatisDao<T extends IdEntity> extends SqlSessionDaoSupport impleme
 			page.setResult(result);
 			page.setTotalCount(result == null ? 0 : result.size());
 		} else {
+			// 总数与分页数据并行查询；参数先复制一份，避免与分页参数互相影响
+			CompletableFuture<Long> totalCount = page.isAutoCount()
+					? startTotalCount(page, getFullSatementName(statementName), new HashMap(toParameterMap(values))) : null;
 			result = getSqlSession().selectList(getFullSatementName(statementName), toParameterMap(values, page), getRowBounds(page));
 			page.setResult(result);
 
-			if (page.isAutoCount()) {
-					long totalCount = getTotalCount(getFullSatementName(statementName), values);
-					page.setTotalCount(totalCount);
+			if (totalCount != null) {
+				try {
+					page.setTotalCount(totalCount.join());
+				} catch (CompletionException e) {
+					throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+				}
 			}
 		}
 
 		return page;
 	}
+	
+	/**
+	 * 按page.countStrategy计算总数. 精确count在没有事务时放到线程池与分页查询并行执行；
+	 * 事务内(包括只读事务)同步执行，线程池线程没有调用方的事务，既看不到同一快照，也不会按只读事务路由到从库
+	 */
+	@SuppressWarnings("rawtypes")
+	private CompletableFuture<Long> startTotalCount(Page<?> page, final String statementName, final Map parameterMap) {
+		page.setCountEstimated(false);
+		if (Page.COUNT_ESTIMATED.equals(page.getCountStrategy())) {
+			Long estimated = estimateTotalCount(statementName, parameterMap);
+			if (estimated != null) {
+				page.setCountEstimated(true);
+				return CompletableFuture.completedFuture(estimated);
+			}
+		}
+		final String cacheKey;
+		if (Page.COUNT_CACHED.equals(page.getCountStrategy())) {
+			cacheKey = statementName + "?" + new TreeMap<Object, Object>(parameterMap);
+			Long cached = getCountCache().getIfPresent(cacheKey);
+			if (cached != null) {
+				return CompletableFuture.completedFuture(cached);
+			}
+		} else {
+			cacheKey = null;
+		}
+		Supplier<Long> count = () -> {
+			long total = getTotalCount(statementName, parameterMap);
+			if (cacheKey != null) {
+				getCountCache().put(cacheKey, total);
+			}
+			return total;
+		};
+		if (!concurrentCount || TransactionSynchronizationManager.isActualTransactionActive()) {
+			return CompletableFuture.completedFuture(count.get());
+		}
+		return CompletableFuture.supplyAsync(count, COUNT_EXECUTOR);
+	}
+	
+	private Cache<String, Long> getCountCache() {
+		if (countCache == null) {
+			synchronized (this) {
+				if (countCache == null) {
+					countCache = Caffeine.newBuilder().maximumSize(countCacheSize)
+							.expireAfterWrite(countCacheSeconds, TimeUnit.SECONDS).build();
+				}
+			}
+		}
+		return countCache;
+	}
+	
+	/**
+	 * 由执行计划估算结果行数，不支持的数据库或估算失败返回null(改用精确count)
+	 */
+	@SuppressWarnings("rawtypes")
+	private Long estimateTotalCount(String statementName, Map parameterMap) {
+		final MappedStatement mst = getSqlSession().getConfiguration().getMappedStatement(statementName);
+		String dialect = getDialect();
+		if (dialect.contains("mysql")) {
+			final String explainId = mst.getId() + "!explain";
+			derivedStatement(explainId, () -> copyStatement(mst, explainId,
+					new DerivedSqlSource(mst, sql -> "explain " + sql, Collections.<ParameterMapping> emptyList()))
+					.resultMaps(inlineResultMap(mst, explainId, HashMap.class))
+					.useCache(false)
+					.build());
+			try {
+				List<Map<String, Object>> plan = getSqlSession().selectList(explainId, parameterMap);
+				// 第一行为驱动表的预估扫描行数
+				Object rows = plan.isEmpty() ? null : plan.get(0).get("rows");
+				return rows == null ? 0l : ((Number) rows).longValue();
+			} catch (RuntimeException e) {
+				logger.warn("estimate count failed, fall back to exact count: {}, {}", statementName, e.getMessage());
+				return null;
+			}
+		}
+		// EXPLAIN PLAN写plan_table，只读事务(可能路由到从库)中不可用，改用精确count
+		if (!dialect.contains("oracle") || TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+			return null;
+		}
+		BoundSql boundSql = mst.getBoundSql(parameterMap);
+		DataSource ds = getSqlSession().getConfiguration().getEnvironment().getDataSource();
+		Connection conn = DataSourceUtils.getConnection(ds);
+		// EXPLAIN PLAN不接受绑定值，占位符改为命名绑定变量，只生成计划不执行；statement_id只能写字面量，由本地生成的十六进制串组成
+		String planId = "cnt" + Long.toHexString(System.nanoTime());
+		try (Statement stmt = conn.createStatement();
+				PreparedStatement select = conn.prepareStatement("select cardinality from plan_table where statement_id = ? and id = 0");
+				PreparedStatement delete = conn.prepareStatement("delete from plan_table where statement_id = ?")) {
+			stmt.execute("explain plan set statement_id = '" + planId + "' for " + namedBinds(boundSql.getSql()));
+			select.setString(1, planId);
+			try (ResultSet rs = select.executeQuery()) {
+				return rs.next() ? rs.getLong(1) : 0l;
+			} finally {
+				delete.setString(1, planId);
+				delete.executeUpdate();
+			}
+		} catch (SQLException e) {
+			logger.warn("estimate count failed, fall back to exact count: {}, {}", statementName, e.getMessage());
+		} finally {
+			DataSourceUtils.releaseConnection(conn, ds);
+		}
+		return null;
+	}
+	
+	private static String namedBinds(String sql) {
+		StringBuilder named = new StringBuilder(sql.length() + 16);
+		boolean quoted = false;
+		int n = 0;
+		for (char c : sql.toCharArray()) {
+			if (c == '\'') {
+				quoted = !quoted;
+			}
+			if (c == '?' && !quoted) {
+				named.append(":b").append(++n);
+			} else {
+				named.append(c);
+			}
+		}
+		return named.toString();
+	}
+	/**
+	 * keyset分页. 原语句作为子查询，按 排序字段+id 追加条件与排序，并按方言限制行数：
+	 * select k.* from (原SQL) k where k.col > ? or (k.col = ? and k.id > ?) order by k.col, k.id limit ?
+	 * 排序字段需非空，且与id组成唯一顺序
+	 */
+	@Override
+	public <X> Page<X> findPageAfter(final Page<X> page, String statementName, final Map<String, ?> values) {
+		Assert.notNull(page, "page不能为空");
+		final String column = StringHelper.isNull(page.getOrderField()) ? KEYSET_ID : page.getOrderField().trim();
+		Assert.isTrue(COLUMN_PATTERN.matcher(column).matches(), "非法的排序字段: " + column);
+		final boolean desc = Page.ORDER_DIRECTION_DESC.equalsIgnoreCase(page.getOrderDirection());
+		final boolean first = page.getAfterId() == null;
+		final String dialect = getDialect();
+		final MappedStatement ms = getSqlSession().getConfiguration().getMappedStatement(getFullSatementName(statementName));
+		final String keysetId = ms.getId() + "!keyset:" + column + (desc ? ":desc" : ":asc") + (first ? ":first" : "");
+		derivedStatement(keysetId, () -> copyStatement(ms, keysetId, keysetSqlSource(ms, column, desc, first, dialect)).build());
+
+		Map<String, Object> params = new HashMap<String, Object>();
+		Map<?, ?> origin = toParameterMap(values);
+		if (origin != null) {
+			for (Map.Entry<?, ?> e : origin.entrySet()) {
+				params.put(String.valueOf(e.getKey()), e.getValue());
+			}
+		}
+		params.put(KEYSET_VALUE, page.getAfterValue());
+		params.put(KEYSET_AFTER_ID, page.getAfterId());
+		params.put(KEYSET_LIMIT, page.getNumPerPage() + 1);
+
+		List<X> result = getSqlSession().selectList(keysetId, params);
+		boolean hasNext = result.size() > page.getNumPerPage();
+		if (hasNext) {
+			result = new ArrayList<X>(result.subList(0, page.getNumPerPage()));
+		}
+		page.setResult(result);
+		page.setHasNext(hasNext);
+		if (!result.isEmpty()) {
+			Object last = result.get(result.size() - 1);
+			Object lastId = readColumn(last, KEYSET_ID);
+			page.setAfterId(lastId == null ? null : ((Number) lastId).longValue());
+			page.setAfterValue(KEYSET_ID.equals(column) ? page.getAfterId() : readColumn(last, column));
+		}
+		return page;
+	}
+	
+	private static final String KEYSET_ID = "id";
+	private static final String KEYSET_VALUE = "_keysetValue";
+	private static final String KEYSET_AFTER_ID = "_keysetAfterId";
+	private static final String KEYSET_LIMIT = "_keysetLimit";
+	private static final Pattern COLUMN_PATTERN = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+	
+	private static volatile String dialect;
+	
+	/**
+	 * 数据库方言(mysql/oracle/...)，首次使用时由连接元数据识别
+	 */
+	protected String getDialect() {
+		if (dialect == null) {
+			try (Connection conn = getSqlSession().getConfiguration().getEnvironment().getDataSource().getConnection()) {
+				dialect = conn.getMetaData().getDatabaseProductName().toLowerCase();
+			} catch (SQLException e) {
+				throw new RuntimeException(e);
+			}
+		}
+		return dialect;
+	}
+	
+	/**
+	 * 取结果行中某列的值：Map结果按列名取，实体结果按驼峰属性名取
+	 */
+	private Object readColumn(Object row, String column) {
+		if (row instanceof Map) {
+			Map<?, ?> map = (Map<?, ?>) row;
+			return map.containsKey(column) ? map.get(column) : map.get(column.toUpperCase());
+		}
+		StringBuilder property = new StringBuilder(column.length());
+		boolean upper = false;
+		for (char c : column.toLowerCase().toCharArray()) {
+			if (c == '_') {
+				upper = property.length() > 0;
+				continue;
+			}
+			property.append(upper ? Character.toUpperCase(c) : c);
+			upper = false;
+		}
+		return getSqlSession().getConfiguration().newMetaObject(row).getValue(property.toString());
+	}
+	
+	/**
+	 * 生成keyset分页SQL的SqlSource，参数在原语句参数之后追加
+	 */
+	private static SqlSource keysetSqlSource(MappedStatement ms, final String column, boolean desc, boolean first, final String dialect) {
+		Configuration configuration = ms.getConfiguration();
+		List<ParameterMapping> extra = new ArrayList<ParameterMapping>();
+		final String op = desc ? " < " : " > ";
+		final String direction = desc ? " desc" : " asc";
+		StringBuilder where = new StringBuilder();
+		if (!first) {
+			if (KEYSET_ID.equals(column)) {
+				where.append(" where k.id").append(op).append("?");
+			} else {
+				where.append(" where (k.").append(column).append(op).append("? or (k.").append(column)
+					.append(" = ? and k.id").append(op).append("?))");
+				extra.add(new ParameterMapping.Builder(configuration, KEYSET_VALUE, Object.class).build());
+				extra.add(new ParameterMapping.Builder(configuration, KEYSET_VALUE, Object.class).build());
+			}
+			extra.add(new ParameterMapping.Builder(configuration, KEYSET_AFTER_ID, Long.class).build());
+		}
+		StringBuilder orderBy = new StringBuilder(" order by ");
+		if (!KEYSET_ID.equals(column)) {
+			orderBy.append("k.").append(column).append(direction).append(", ");
+		}
+		orderBy.append("k.id").append(direction);
+		extra.add(new ParameterMapping.Builder(configuration, KEYSET_LIMIT, Integer.class).build());
+		final String suffix = where.toString() + orderBy;
+		return new DerivedSqlSource(ms, sql -> {
+			String keyset = "select k.* from (" + sql + ") k" + suffix;
+			if (dialect.contains("oracle")) {
+				return "select * from (" + keyset + ") where rownum <= ?";
+			}
+			return keyset + " limit ?";
+		}, extra);
+	}
+	
+	/**
+	 * 由已有语句派生的SqlSource：以原语句生成的SQL为基础改写，原语句参数(包括foreach/bind附加参数)原样保留，可在其后追加参数
+	 */
+	private static class DerivedSqlSource implements SqlSource {
+		private final MappedStatement ms;
+		private final Function<String, String> rewriter;
+		private final List<ParameterMapping> extra;
+		
+		DerivedSqlSource(MappedStatement ms, Function<String, String> rewriter, List<ParameterMapping> extra) {
+			this.ms = ms;
+			this.rewriter = rewriter;
+			this.extra = extra;
+		}
+		
+		@Override
+		public BoundSql getBoundSql(Object parameterObject) {
+			BoundSql origin = ms.getBoundSql(parameterObject);
+			List<ParameterMapping> mappings = new ArrayList<ParameterMapping>(origin.getParameterMappings());
+			mappings.addAll(extra);
+			BoundSql boundSql = new BoundSql(ms.getConfiguration(), rewriter.apply(origin.getSql()), mappings, parameterObject);
+			Map<String, Object> additional = (Map<String, Object>) SystemMetaObject.forObject(origin).getValue("additionalParameters");
+			if (additional != null) {
+				for (Map.Entry<String, Object> e : additional.entrySet()) {
+					boundSql.setAdditionalParameter(e.getKey(), e.getValue());
+				}
+			}
+			return boundSql;
+		}
+	}
+	
+	/**
+	 * 由原语句派生的count语句(id为 原id!count)，与普通查询一样经MyBatis执行器执行，享受连接管理和PreparedStatement缓存
+	 */
+	private MappedStatement countStatement(final MappedStatement ms) {
+		final String countId = ms.getId() + "!count";
+		return derivedStatement(countId, () -> copyStatement(ms, countId,
+				new DerivedSqlSource(ms, sql -> "select count(*) total_count from (" + sql + ") a", Collections.<ParameterMapping> emptyList()))
+				.resultMaps(inlineResultMap(ms, countId, Long.class))
+				.useCache(false)
+				.build());
+	}
+	
+	private static List<ResultMap> inlineResultMap(MappedStatement ms, String id, Class<?> type) {
+		List<ResultMap> resultMaps = new ArrayList<ResultMap>(1);
+		resultMaps.add(new ResultMap.Builder(ms.getConfiguration(), id + "-Inline", type, new ArrayList<ResultMapping>()).build());
+		return resultMaps;
+	}
+	
 	@SuppressWarnings("rawtypes")
 	private long getTotalCount(String statementName,Object values ) {  
-        Map parameterMap=toParameterMap(values);  
-        long count=0l;  
-        try {  
-            MappedStatement mst = getSqlSession().getConfiguration().getMappedStatement(statementName);  
-            BoundSql boundSql = mst.getBoundSql(parameterMap);  
-            String sql = " select count(*) total_count from (" + boundSql.getSql()+ ") a ";  
-            PreparedStatement pstmt = getSqlSession().getConnection().prepareStatement(sql);  
-            setParameters(pstmt,mst,boundSql,parameterMap);  
-            ResultSet rs=pstmt.executeQuery();   
-            if (rs.next()){   
-                count = rs.getLong("total_count");  
-            }  
-            rs.close();  
-            pstmt.close();  
-        } catch (Exception e) {  
-            count=0l;  
-            e.printStackTrace();  
-            throw new RuntimeException(e);  
-        }  
-        return count;  
-    }  
-	@SuppressWarnings("rawtypes")  
-	private void setParameters(PreparedStatement ps,MappedStatement mappedStatement,BoundSql boundSql,Object parameterObject) throws SQLException {    
-        ErrorContext.instance().activity("setting parameters").object(mappedStatement.getParameterMap().getId());    
-        List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();    
-        if (parameterMappings != null) {  
-            Configuration configuration = mappedStatement.getConfiguration();    
-            TypeHandlerRegistry typeHandlerRegistry = configuration.getTypeHandlerRegistry();    
-            MetaObject metaObject = parameterObject == null ? null: configuration.newMetaObject(parameterObject);    
-            for (int i = 0; i < parameterMappings.size(); i++) {    
-                ParameterMapping parameterMapping = parameterMappings.get(i);    
-                if (parameterMapping.getMode() != ParameterMode.OUT) {    
-                    Object value;  
-                    String propertyName = parameterMapping.getProperty();    
-                    PropertyTokenizer prop = new PropertyTokenizer(propertyName);  
-                    if (parameterObject == null) {    
-                        value = null;    
-                    } else if (typeHandlerRegistry.hasTypeHandler(parameterObject.getClass())) {    
-                        value = parameterObject;    
-                    } else if (boundSql.hasAdditionalParameter(propertyName)) {    
-                        value = boundSql.getAdditionalParameter(propertyName);    
-                    } else if (propertyName.startsWith(ForEachSqlNode.ITEM_PREFIX)&& boundSql.hasAdditionalParameter(prop.getName())) {    
-                        value = boundSql.getAdditionalParameter(prop.getName());    
-                        if (value != null) {    
-                            value = configuration.newMetaObject(value).getValue(propertyName.substring(prop.getName().length()));    
-                        }    
-                    } else {    
-                        value = metaObject == null ? null : metaObject.getValue(propertyName);    
-                    }    
-                    TypeHandler typeHandler = parameterMapping.getTypeHandler();    
-                    if (typeHandler == null) {    
-                        throw new ExecutorException("There was no TypeHandler found for parameter "+ propertyName + " of statement "+ mappedStatement.getId());    
-                    }  
-                    typeHandler.setParameter(ps, i + 1, value, parameterMapping.getJdbcType());    
-                }    
-            }    
-        }    
-    }    
+		Map parameterMap=toParameterMap(values);  
+		MappedStatement mst = getSqlSession().getConfiguration().getMappedStatement(statementName);  
+		Long count = getSqlSession().selectOne(countStatement(mst).getId(), parameterMap);
+		return count == null ? 0l : count;
+	}
 	
 	private String getFullSatementName(String statementName) {
-		return getMapperClass().getName()+"." + statementName;
+		String name = statementNames.get(statementName);
+		if (name == null) {
+			name = getMapperClass().getName()+"." + statementName;
+			statementNames.putIfAbsent(statementName, name);
+		}
+		return name;
 	}
 	
 	@SuppressWarnings("rawtypes") 
@@ -302,17 +897,25 @@ public class MyBatisDao<T extends IdEntity> extends SqlSessionDaoSupport impleme
 	 * startRow,endRow : 用于oracle分页使用,从1开始
 	 * offset,limit : 用于mysql 分页使用,从0开始
 	 */
-	@SuppressWarnings("rawtypes")
+	@SuppressWarnings({ "rawtypes", "unchecked" })
 	protected Map toParameterMap(Object parameter, Page p) {
-		Map map = toParameterMap(parameter);
-		map.put("startRow", p.getFirst());
+		Map<String, Object> pageParams = new HashMap<String, Object>(8);
+		pageParams.put("startRow", p.getFirst());
 		// get PAGE_FETCH_NUMBER pages
-		map.put("endRow", p.getFirst() + p.getNumPerPage());
-		map.put("offset", p.getFirst() - 1);
-		map.put("limit", p.getNumPerPage());
+		pageParams.put("endRow", p.getFirst() + p.getNumPerPage());
+		pageParams.put("offset", p.getFirst() - 1);
+		pageParams.put("limit", p.getNumPerPage());
+		if (parameter != null && !(parameter instanceof Map)) {
+			return new BeanMap(parameter, pageParams);
+		}
+		Map map = toParameterMap(parameter);
+		map.putAll(pageParams);
 		return map;
 	}
 
+	/**
+	 * Map原样返回，JavaBean包装为只读的BeanMap视图
+	 */
 	@SuppressWarnings("rawtypes")
 	protected Map toParameterMap(Object parameter) {
 		if (parameter == null) {
@@ -320,22 +923,15 @@ public class MyBatisDao<T extends IdEntity> extends SqlSessionDaoSupport impleme
 		}
 		if (parameter instanceof Map) {
 			return (Map<?,?>) parameter;
-		} else {
-			try {
-				return PropertyUtils.describe(parameter);
-			} catch (Exception e) {
-				e.printStackTrace();
-				return null;
-			}
 		}
+		return new BeanMap(parameter);
 	}
 
 	protected <X> X getMapper(Class<X> type) {
 		return getSqlSession().getMapper(type);
 	}
-	@SuppressWarnings("rawtypes")
-	protected Mapper getMapper() {
-		return (Mapper)getSqlSession().getMapper(getMapperClass());
+	protected Mapper<T> getMapper() {
+		return mapper;
 	}
 	@SuppressWarnings("rawtypes")
 	@Override
@@ -344,7 +940,7 @@ public class MyBatisDao<T extends IdEntity> extends SqlSessionDaoSupport impleme
 	}
 	@Override
 	public void deleteAll(){
-		Mapper<T> mapper = (Mapper<T>)getMapper(getMapperClass());
+		Mapper<T> mapper = getMapper();
 		mapper.deleteAll();
 	}
 
@@ -358,18 +954,33 @@ public class MyBatisDao<T extends IdEntity> extends SqlSessionDaoSupport impleme
 		throw new RuntimeException("Unsupported");
 	}
 
+	/**
+	 * 按主键批量查询，每IN_LIST_LIMIT个id一条查询，结果按ids顺序返回，不存在的id对应位置为null
+	 */
 	@Override
 	public List<T> findByIds(List<Long> ids) {
 		if (ids == null) {
 			return null;
 		}
-		
-		List<T> list = new ArrayList<T>();
+		Map<Long, T> found = new HashMap<Long, T>(ids.size() * 4 / 3 + 1);
+		Mapper<T> mapper = getMapper();
+		for (List<Long> chunk : chunks(distinctIds(ids), IN_LIST_LIMIT)) {
+			for (T t : mapper.selectByPrimaryKeys(chunk)) {
+				found.put(t.getId(), t);
+			}
+		}
+		List<T> list = new ArrayList<T>(ids.size());
 		for (Long id : ids) {
-			list.add(get(id));
+			list.add(id == null ? null : found.get(id));
 		}
 		return list;
 	}
+	
+	private static List<Long> distinctIds(List<Long> ids) {
+		Set<Long> distinct = new LinkedHashSet<Long>(ids);
+		distinct.remove(null);
+		return new ArrayList<Long>(distinct);
+	}
 	@SuppressWarnings("rawtypes")
 	@Override
 	public List<T> find(String statementName, Map values) {
@@ -381,6 +992,85 @@ public class MyBatisDao<T extends IdEntity> extends SqlSessionDaoSupport impleme
 		List list = getSqlSession().selectList(getFullSatementName(statementName), values);
 		return list == null || list.size() == 0 ? null : list.get(0);
 	}
+	@Override
+	public <X> long stream(String statementName, Map<String, ?> values, Consumer<X> consumer) {
+		return stream(statementName, values, streamFetchSize, consumer);
+	}
+	
+	/**
+	 * 流式查询：使用fetchSize为指定值、FORWARD_ONLY的派生语句，结果经ResultHandler逐行交给consumer，不累积到List中.
+	 * MySQL下派生语句的fetchSize固定为Integer.MIN_VALUE(Connector/J的逐行流式读取)，不依赖连接串的useCursorFetch，
+	 * 其它语句不受影响；读取完成前同一连接不能执行其它语句，consumer中不要在同一事务内再访问数据库
+	 */
+	@Override
+	public <X> long stream(String statementName, Map<String, ?> values, int fetchSize, Consumer<X> consumer) {
+		Assert.notNull(consumer, "consumer不能为空");
+		MappedStatement ms = getSqlSession().getConfiguration().getMappedStatement(getFullSatementName(statementName));
+		final int jdbcFetchSize = getDialect().contains("mysql") ? Integer.MIN_VALUE : fetchSize;
+		String streamId = ms.getId() + "!stream" + jdbcFetchSize;
+		derivedStatement(streamId, () -> copyStatement(ms, streamId, ms.getSqlSource())
+				.fetchSize(jdbcFetchSize)
+				.resultSetType(ResultSetType.FORWARD_ONLY)
+				.useCache(false)
+				.build());
+		final long[] count = new long[1];
+		getSqlSession().select(streamId, values, new ResultHandler<X>() {
+			public void handleResult(ResultContext<? extends X> context) {
+				count[0]++;
+				consumer.accept(context.getResultObject());
+			}
+		});
+		return count[0];
+	}
+	
+	/**
+	 * 取得(必要时注册)由已有语句派生的MappedStatement，派生语句按id缓存在Configuration中
+	 */
+	protected MappedStatement derivedStatement(String id, Supplier<MappedStatement> factory) {
+		Configuration configuration = getSqlSession().getConfiguration();
+		if (configuration.hasStatement(id, false)) {
+			return configuration.getMappedStatement(id, false);
+		}
+		synchronized (configuration) {
+			if (!configuration.hasStatement(id, false)) {
+				configuration.addMappedStatement(factory.get());
+			}
+		}
+		return configuration.getMappedStatement(id, false);
+	}
+	
+	/**
+	 * 复制语句的全部属性，仅替换id和SQL
+	 */
+	protected static MappedStatement.Builder copyStatement(MappedStatement ms, String id, SqlSource sqlSource) {
+		MappedStatement.Builder builder = new MappedStatement.Builder(ms.getConfiguration(), id, sqlSource,
+				ms.getSqlCommandType());
+		builder.resource(ms.getResource())
+				.parameterMap(ms.getParameterMap())
+				.resultMaps(ms.getResultMaps())
+				.fetchSize(ms.getFetchSize())
+				.timeout(ms.getTimeout())
+				.statementType(ms.getStatementType())
+				.resultSetType(ms.getResultSetType())
+				.cache(ms.getCache())
+				.flushCacheRequired(ms.isFlushCacheRequired())
+				.useCache(ms.isUseCache())
+				.resultOrdered(ms.isResultOrdered())
+				.keyGenerator(ms.getKeyGenerator())
+				.databaseId(ms.getDatabaseId())
+				.lang(ms.getLang());
+		if (ms.getKeyProperties() != null) {
+			builder.keyProperty(StringUtils.join(ms.getKeyProperties(), ","));
+		}
+		if (ms.getKeyColumns() != null) {
+			builder.keyColumn(StringUtils.join(ms.getKeyColumns(), ","));
+		}
+		if (ms.getResultSets() != null) {
+			builder.resultSets(StringUtils.join(ms.getResultSets(), ","));
+		}
+		return builder;
+	}
+	
 	@SuppressWarnings("rawtypes")
 	@Override
 	public void delete(String statementName, Map values) {
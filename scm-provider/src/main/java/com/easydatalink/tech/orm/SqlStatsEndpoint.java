@@ -0,0 +1,49 @@
+package com.easydatalink.tech.orm;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+
+/**
+ * actuator端点/actuator/sqlstats：按总耗时倒序列出各MyBatis语句的次数、行数、错误数及耗时分位数(毫秒)
+ */
+@Component
+@Endpoint(id = "sqlstats")
+public class SqlStatsEndpoint {
+
+	@Autowired
+	private SqlStatsInterceptor interceptor;
+
+	@ReadOperation
+	public List<Map<String, Object>> stats() {
+		List<Map<String, Object>> list = new ArrayList<Map<String, Object>>();
+		for (SqlStatsInterceptor.StatementStats s : interceptor.getStats()) {
+			HistogramSnapshot snapshot = s.getTimer().takeSnapshot(false);
+			Map<String, Object> m = new LinkedHashMap<String, Object>();
+			m.put("statement", s.getId());
+			m.put("count", snapshot.count());
+			m.put("errors", s.getErrors());
+			m.put("rows", s.getRows());
+			m.put("totalMillis", snapshot.total(TimeUnit.MILLISECONDS));
+			m.put("meanMillis", snapshot.mean(TimeUnit.MILLISECONDS));
+			m.put("maxMillis", snapshot.max(TimeUnit.MILLISECONDS));
+			for (ValueAtPercentile p : snapshot.percentileValues()) {
+				m.put("p" + Math.round(p.percentile() * 100), p.value(TimeUnit.MILLISECONDS));
+			}
+			list.add(m);
+		}
+		list.sort(Comparator.comparing((Map<String, Object> m) -> (Double) m.get("totalMillis")).reversed());
+		return list;
+	}
+}
@@ -0,0 +1,213 @@
+package com.easydatalink.tech.orm;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * MyBatis语句统计插件
+ * <p>
+ * 按MappedStatement记录耗时直方图(mybatis.statement)、返回/影响行数及错误数，
+ * 超过mybatis.slowQuery.thresholdMillis的语句连同绑定参数记入日志；统计数据见actuator的sqlstats端点。
+ * BATCH执行器的update返回占位值，影响行数改从flushStatements的BatchResult中统计。
+ */
+@Component
+@Intercepts({
+		@Signature(type = Executor.class, method = "update", args = { MappedStatement.class, Object.class }),
+		@Signature(type = Executor.class, method = "query", args = { MappedStatement.class, Object.class,
+				RowBounds.class, ResultHandler.class }),
+		@Signature(type = Executor.class, method = "query", args = { MappedStatement.class, Object.class,
+				RowBounds.class, ResultHandler.class, CacheKey.class, BoundSql.class }),
+		@Signature(type = Executor.class, method = "flushStatements", args = {}) })
+@SuppressWarnings("unchecked")
+public class SqlStatsInterceptor implements Interceptor {
+
+	private static Logger logger = LoggerFactory.getLogger(SqlStatsInterceptor.class);
+
+	@Autowired
+	private MeterRegistry registry;
+
+	// 慢查询阈值(毫秒)，<=0不记录
+	@Value("${mybatis.slowQuery.thresholdMillis:1000}")
+	private long slowThresholdMillis;
+
+	private final ConcurrentMap<String, StatementStats> stats = new ConcurrentHashMap<String, StatementStats>();
+
+	@Override
+	public Object intercept(Invocation invocation) throws Throwable {
+		if ("flushStatements".equals(invocation.getMethod().getName())) {
+			List<BatchResult> results = (List<BatchResult>) invocation.proceed();
+			countBatchRows(results);
+			return results;
+		}
+		Object[] args = invocation.getArgs();
+		MappedStatement ms = (MappedStatement) args[0];
+		StatementStats s = stats(ms.getId());
+		long start = System.nanoTime();
+		Object result = null;
+		try {
+			result = invocation.proceed();
+			s.rows.increment(rows(result));
+			return result;
+		} catch (Throwable e) {
+			s.errors.increment();
+			throw e;
+		} finally {
+			long elapsed = System.nanoTime() - start;
+			s.timer.record(elapsed, TimeUnit.NANOSECONDS);
+			long millis = TimeUnit.NANOSECONDS.toMillis(elapsed);
+			if (slowThresholdMillis > 0 && millis >= slowThresholdMillis) {
+				logSlow(ms, args, millis, result);
+			}
+		}
+	}
+
+	@Override
+	public Object plugin(Object target) {
+		return target instanceof Executor ? Plugin.wrap(target, this) : target;
+	}
+
+	@Override
+	public void setProperties(Properties properties) {
+	}
+
+	/**
+	 * 所有语句的统计
+	 */
+	public Collection<StatementStats> getStats() {
+		return stats.values();
+	}
+
+	private StatementStats stats(String id) {
+		StatementStats s = stats.get(id);
+		if (s == null) {
+			s = stats.computeIfAbsent(id, k -> new StatementStats(k, registry));
+		}
+		return s;
+	}
+
+	private void countBatchRows(List<BatchResult> results) {
+		if (results == null)
+			return;
+		for (BatchResult result : results) {
+			long rows = 0;
+			for (int count : result.getUpdateCounts()) {
+				// SUCCESS_NO_INFO等负值不计
+				if (count > 0)
+					rows += count;
+			}
+			stats(result.getMappedStatement().getId()).rows.increment(rows);
+		}
+	}
+
+	/**
+	 * 查询返回行数或更新影响行数；BATCH执行器的update返回BATCH_UPDATE_RETURN_VALUE(负值)，此时按0计
+	 */
+	private static long rows(Object result) {
+		if (result instanceof Collection)
+			return ((Collection<?>) result).size();
+		if (result instanceof Number)
+			return Math.max(((Number) result).longValue(), 0);
+		return 0;
+	}
+
+	private void logSlow(MappedStatement ms, Object[] args, long millis, Object result) {
+		try {
+			BoundSql boundSql = args.length == 6 ? (BoundSql) args[5] : ms.getBoundSql(args[1]);
+			logger.warn("slow sql {} took {}ms, rows={}: {} parameters={}", ms.getId(), millis, rows(result),
+					boundSql.getSql().replaceAll("\\s+", " "), parameters(ms.getConfiguration(), boundSql));
+		} catch (Exception e) {
+			logger.warn("slow sql {} took {}ms", ms.getId(), millis);
+		}
+	}
+
+	/**
+	 * 按DefaultParameterHandler的规则取绑定参数值
+	 */
+	private static List<Object> parameters(Configuration configuration, BoundSql boundSql) {
+		List<Object> values = new ArrayList<Object>();
+		Object parameterObject = boundSql.getParameterObject();
+		MetaObject metaObject = null;
+		for (ParameterMapping pm : boundSql.getParameterMappings()) {
+			if (pm.getMode() == ParameterMode.OUT)
+				continue;
+			String property = pm.getProperty();
+			if (boundSql.hasAdditionalParameter(property)) {
+				values.add(boundSql.getAdditionalParameter(property));
+			} else if (parameterObject == null) {
+				values.add(null);
+			} else if (configuration.getTypeHandlerRegistry().hasTypeHandler(parameterObject.getClass())) {
+				values.add(parameterObject);
+			} else {
+				if (metaObject == null)
+					metaObject = configuration.newMetaObject(parameterObject);
+				values.add(metaObject.getValue(property));
+			}
+		}
+		return values;
+	}
+
+	/**
+	 * 单条语句的指标
+	 */
+	public static class StatementStats {
+		final String id;
+		final Timer timer;
+		final Counter rows;
+		final Counter errors;
+
+		StatementStats(String id, MeterRegistry registry) {
+			this.id = id;
+			this.timer = Timer.builder("mybatis.statement").tag("statement", id).publishPercentileHistogram()
+					.publishPercentiles(0.5, 0.95, 0.99).register(registry);
+			this.rows = Counter.builder("mybatis.statement.rows").tag("statement", id).register(registry);
+			this.errors = Counter.builder("mybatis.statement.errors").tag("statement", id).register(registry);
+		}
+
+		public String getId() {
+			return id;
+		}
+
+		public Timer getTimer() {
+			return timer;
+		}
+
+		public long getRows() {
+			return (long) rows.count();
+		}
+
+		public long getErrors() {
+			return (long) errors.count();
+		}
+	}
+}
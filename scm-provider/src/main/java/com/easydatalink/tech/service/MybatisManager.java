@@ -83,9 +83,7 @@ public class MybatisManager<T extends IdEntity, D extends IMybatisDao<T>> implem
 	@Override
 	@Transactional(readOnly = false, propagation = Propagation.REQUIRED)
 	public void batchDelete(List<Long> ids) {
-		for (Long id : ids) {
-			dao.delete(id);
-		}
+		dao.batchDelete(ids);
 	}
 
 	@Override
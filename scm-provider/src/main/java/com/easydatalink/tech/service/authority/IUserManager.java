@@ -1,5 +1,7 @@
 package com.easydatalink.tech.service.authority;
 
+import java.util.List;
+
 import com.easydatalink.tech.entity.authortity.SysUser;
 import com.easydatalink.tech.service.IManager;
 
@@ -10,5 +12,10 @@ public interface IUserManager extends IManager<SysUser>{
 	 * */
 	public SysUser findUserByLoginName(String name);
 	
+	/**
+	 * 根据登录名批量查询用户信息
+	 * */
+	public List<SysUser> findUsersByLoginNames(List<String> names);
+	
 	
 }
\ No newline at end of file
@@ -1,10 +1,16 @@
 package com.easydatalink.tech.service.authority.impl;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.easydatalink.tech.cache.RemoteCacheInvalidator;
 import com.easydatalink.tech.dao.authority.IUserDao;
 import com.easydatalink.tech.entity.authortity.SysUser;
 import com.easydatalink.tech.service.MybatisManager;
@@ -15,12 +21,110 @@ public class UserManager extends MybatisManager<SysUser, IUserDao> implements IU
 
 	private static Logger logger = LoggerFactory.getLogger(UserManager.class);
 
+	/**
+	 * scm-web中SysUserService.findByName的缓存名
+	 */
+	private static final String USER_CACHE = "user";
+
 	@Autowired
 	private IUserDao userDao;
 
+	@Autowired
+	private RemoteCacheInvalidator remoteCacheInvalidator;
+
 	@Override
 	public SysUser findUserByLoginName(String name) {
 		return userDao.findUserByLoginName(name);
 	}
 
+	@Override
+	@Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+	public List<SysUser> findUsersByLoginNames(List<String> names) {
+		return userDao.findUsersByLoginNames(names);
+	}
+
+	@Override
+	public Long insert(SysUser entity) {
+		Long id = super.insert(entity);
+		invalidate(entity);
+		return id;
+	}
+
+	@Override
+	public boolean update(SysUser entity) {
+		// 可能改了登录名，旧登录名的缓存也要失效
+		SysUser old = entity.getId() == null ? null : get(entity.getId());
+		boolean updated = super.update(entity);
+		invalidate(old);
+		invalidate(entity);
+		return updated;
+	}
+
+	@Override
+	public void delete(SysUser entity) {
+		super.delete(entity);
+		invalidate(entity);
+	}
+
+	@Override
+	public void delete(Long id) {
+		super.delete(id);
+		remoteCacheInvalidator.invalidateAll(USER_CACHE);
+	}
+
+	@Override
+	public void deleteComplete(Long id) {
+		super.deleteComplete(id);
+		remoteCacheInvalidator.invalidateAll(USER_CACHE);
+	}
+
+	@Override
+	public void batchDelete(List<Long> ids) {
+		super.batchDelete(ids);
+		remoteCacheInvalidator.invalidateAll(USER_CACHE);
+	}
+
+	@Override
+	public void batchDeleteComplete(List<Long> ids) {
+		super.batchDeleteComplete(ids);
+		remoteCacheInvalidator.invalidateAll(USER_CACHE);
+	}
+
+	@Override
+	public void batchInsert(List<SysUser> entities) {
+		super.batchInsert(entities);
+		invalidate(entities);
+	}
+
+	@Override
+	public void batchUpdate(List<SysUser> entities) {
+		super.batchUpdate(entities);
+		remoteCacheInvalidator.invalidateAll(USER_CACHE);
+	}
+
+	/**
+	 * 通知调用方失效该用户的缓存，登录名未知时清空整个缓存
+	 */
+	private void invalidate(SysUser user) {
+		if (user == null)
+			return;
+		if (user.getName() == null) {
+			remoteCacheInvalidator.invalidateAll(USER_CACHE);
+		} else {
+			remoteCacheInvalidator.invalidate(USER_CACHE, user.getName());
+		}
+	}
+
+	private void invalidate(List<SysUser> users) {
+		List<String> names = new ArrayList<String>(users.size());
+		for (SysUser user : users) {
+			if (user.getName() == null) {
+				remoteCacheInvalidator.invalidateAll(USER_CACHE);
+				return;
+			}
+			names.add(user.getName());
+		}
+		remoteCacheInvalidator.invalidate(USER_CACHE, names.toArray(new String[names.size()]));
+	}
+
 }
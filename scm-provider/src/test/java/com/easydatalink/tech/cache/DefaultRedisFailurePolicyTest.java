@@ -0,0 +1,93 @@
+package com.easydatalink.tech.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+public class DefaultRedisFailurePolicyTest {
+
+	private static final long OPEN_MILLIS = 100;
+
+	private final JedisConnectionException failure = new JedisConnectionException("connection refused");
+
+	private DefaultRedisFailurePolicy policy;
+
+	@Before
+	public void setUp() {
+		policy = new DefaultRedisFailurePolicy();
+		ReflectionTestUtils.setField(policy, "maxAttempts", 3);
+		ReflectionTestUtils.setField(policy, "backoffMillis", 20L);
+		ReflectionTestUtils.setField(policy, "maxBackoffMillis", 30L);
+		ReflectionTestUtils.setField(policy, "failureThreshold", 3);
+		ReflectionTestUtils.setField(policy, "openMillis", OPEN_MILLIS);
+	}
+
+	@Test
+	public void retriesWithJitteredBackoffUntilMaxAttempts() {
+		for (int i = 0; i < 100; i++) {
+			long first = policy.retryDelay(1, failure);
+			assertTrue("first retry waits backoffMillis with jitter: " + first, first >= 10 && first <= 20);
+			long second = policy.retryDelay(2, failure);
+			assertTrue("backoff is capped at maxBackoffMillis: " + second, second >= 15 && second <= 30);
+		}
+		assertEquals(-1, policy.retryDelay(3, failure));
+	}
+
+	@Test
+	public void opensAfterConsecutiveFailures() {
+		policy.onFailure(failure);
+		policy.onFailure(failure);
+		assertTrue(policy.allowRequest());
+
+		policy.onFailure(failure);
+		assertFalse(policy.allowRequest());
+	}
+
+	@Test
+	public void successResetsTheFailureCount() {
+		policy.onFailure(failure);
+		policy.onFailure(failure);
+		policy.onSuccess();
+		policy.onFailure(failure);
+		policy.onFailure(failure);
+		assertTrue(policy.allowRequest());
+	}
+
+	@Test
+	public void halfOpenLetsOneProbeThroughAndClosesOnSuccess() throws InterruptedException {
+		open();
+		Thread.sleep(OPEN_MILLIS + 20);
+
+		assertTrue("one probe per window", policy.allowRequest());
+		assertFalse(policy.allowRequest());
+
+		policy.onSuccess();
+		assertTrue(policy.allowRequest());
+		assertTrue(policy.allowRequest());
+	}
+
+	@Test
+	public void failedProbeKeepsTheCircuitOpen() throws InterruptedException {
+		open();
+		Thread.sleep(OPEN_MILLIS + 20);
+		assertTrue(policy.allowRequest());
+
+		policy.onFailure(failure);
+		assertFalse(policy.allowRequest());
+		Thread.sleep(OPEN_MILLIS + 20);
+		assertTrue("next window lets another probe through", policy.allowRequest());
+	}
+
+	private void open() {
+		for (int i = 0; i < 3; i++) {
+			policy.onFailure(failure);
+		}
+		assertFalse(policy.allowRequest());
+	}
+}
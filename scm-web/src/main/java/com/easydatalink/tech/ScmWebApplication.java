@@ -7,8 +7,10 @@ import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 import org.springframework.cloud.client.loadbalancer.LoadBalanced;
 import org.springframework.cloud.openfeign.EnableFeignClients;
 import org.springframework.context.annotation.Bean;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import com.easydatalink.tech.loadbalancer.LatencyTrackingRequestFactory;
 import com.netflix.hystrix.contrib.metrics.eventstream.HystrixMetricsStreamServlet;
 
 /**
@@ -28,7 +30,8 @@ public class ScmWebApplication {
 	@Bean
 	@LoadBalanced
 	public RestTemplate restTemplate() {
-		return new RestTemplate();
+		// 向ServerLatencyTracker报告各实例响应时间，供LatencyAwareRule使用
+		return new RestTemplate(new LatencyTrackingRequestFactory(new SimpleClientHttpRequestFactory()));
 	}
 	// 此配置是为了服务监控而配置，与服务容错本身无关，
 	// ServletRegistrationBean因为springboot的默认路径不是"/hystrix.stream"，
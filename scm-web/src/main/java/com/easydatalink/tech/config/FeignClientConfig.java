@@ -0,0 +1,122 @@
+package com.easydatalink.tech.config;
+
+import javax.annotation.PostConstruct;
+
+import org.apache.http.client.HttpClient;
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.cloud.netflix.ribbon.SpringClientFactory;
+import org.springframework.cloud.openfeign.ribbon.CachingSpringLoadBalancerFactory;
+import org.springframework.cloud.openfeign.ribbon.LoadBalancerFeignClient;
+import org.springframework.cloud.openfeign.support.SpringEncoder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import com.easydatalink.tech.loadbalancer.HedgingFeignClient;
+import com.easydatalink.tech.loadbalancer.LatencyTrackingClient;
+import com.easydatalink.tech.loadbalancer.ServerLatencyTracker;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import feign.Client;
+import feign.RequestInterceptor;
+import feign.codec.Encoder;
+import feign.httpclient.ApacheHttpClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Feign传输配置
+ * <p>
+ * classpath上有feign-httpclient时，spring-cloud-openfeign用连接池化的Apache HttpClient代替HttpURLConnection，
+ * 连接池、超时和压缩由application.properties中的feign.httpclient.*、feign.compression.*配置，这里绑定连接池指标。
+ * <p>
+ * feign.codec=smile(默认)时请求体用Smile(二进制JSON，不输出null属性)编码，并通过Accept要求服务方返回Smile；
+ * 响应按Content-Type由HttpMessageConverters解码，服务方不支持Smile时仍可读JSON。
+ * <p>
+ * Feign Client在负载均衡之后向ServerLatencyTracker报告各实例响应时间(供LatencyAwareRule使用)，
+ * feign.hedge.enabled时GET请求超过p95未返回会对冲(HedgingFeignClient)。
+ */
+@Configuration
+public class FeignClientConfig {
+
+	private static final String SMILE = "application/x-jackson-smile";
+
+	@Value("${ribbon.latency.decayMillis:10000}")
+	private long latencyDecayMillis;
+	@Value("${feign.hedge.enabled:false}")
+	private boolean hedgeEnabled;
+	@Value("${feign.hedge.minDelayMillis:10}")
+	private long hedgeMinDelayMillis;
+	@Value("${feign.hedge.maxRatio:0.1}")
+	private double hedgeMaxRatio;
+	@Value("${feign.hedge.minSamples:100}")
+	private long hedgeMinSamples;
+
+	@PostConstruct
+	public void init() {
+		ServerLatencyTracker.getInstance().setDecayMillis(latencyDecayMillis);
+	}
+
+	/**
+	 * 代替spring-cloud-openfeign默认的LoadBalancerFeignClient，在负载均衡前后分别加对冲和响应时间统计
+	 */
+	@Bean
+	public Client feignClient(CachingSpringLoadBalancerFactory loadBalancerFactory, SpringClientFactory clientFactory,
+			HttpClient httpClient, MeterRegistry registry) {
+		Client client = new LoadBalancerFeignClient(new LatencyTrackingClient(new ApacheHttpClient(httpClient)),
+				loadBalancerFactory, clientFactory);
+		if (hedgeEnabled) {
+			client = new HedgingFeignClient(client, registry, hedgeMinDelayMillis, hedgeMaxRatio, hedgeMinSamples);
+		}
+		return client;
+	}
+
+	@Bean
+	public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter() {
+		return new MappingJackson2SmileHttpMessageConverter(
+				Jackson2ObjectMapperBuilder.smile().serializationInclusion(JsonInclude.Include.NON_NULL).build());
+	}
+
+	@Bean
+	@ConditionalOnProperty(name = "feign.codec", havingValue = "smile", matchIfMissing = true)
+	public Encoder feignEncoder(ObjectFactory<HttpMessageConverters> messageConverters) {
+		final Encoder delegate = new SpringEncoder(messageConverters);
+		return (body, bodyType, template) -> {
+			// 未指定Content-Type的对象请求体用Smile，SpringEncoder按Content-Type选择转换器
+			if (body != null && !(body instanceof String) && !(body instanceof byte[])
+					&& !template.headers().containsKey(HttpHeaders.CONTENT_TYPE)) {
+				template.header(HttpHeaders.CONTENT_TYPE, SMILE);
+			}
+			delegate.encode(body, bodyType, template);
+		};
+	}
+
+	@Bean
+	@ConditionalOnProperty(name = "feign.codec", havingValue = "smile", matchIfMissing = true)
+	public RequestInterceptor smileAcceptInterceptor() {
+		return template -> {
+			if (!template.headers().containsKey(HttpHeaders.ACCEPT)) {
+				template.header(HttpHeaders.ACCEPT, SMILE, MediaType.APPLICATION_JSON_VALUE);
+			}
+		};
+	}
+
+	@Bean
+	public MeterBinder feignPoolMetrics(ObjectProvider<HttpClientConnectionManager> connectionManager) {
+		return registry -> {
+			HttpClientConnectionManager cm = connectionManager.getIfAvailable();
+			if (cm instanceof PoolingHttpClientConnectionManager) {
+				new FeignPoolMetrics((PoolingHttpClientConnectionManager) cm).bindTo(registry);
+			}
+		};
+	}
+}
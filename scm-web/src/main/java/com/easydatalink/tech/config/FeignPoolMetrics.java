@@ -0,0 +1,35 @@
+package com.easydatalink.tech.config;
+
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Feign(Apache HttpClient)连接池指标，通过actuator(/actuator/metrics)暴露
+ * <p>
+ * 租用/空闲/等待连接数和上限；pending持续大于0说明feign.httpclient.max-connections(-per-route)不够。
+ */
+public class FeignPoolMetrics implements MeterBinder {
+
+	private final PoolingHttpClientConnectionManager connectionManager;
+
+	public FeignPoolMetrics(PoolingHttpClientConnectionManager connectionManager) {
+		this.connectionManager = connectionManager;
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		Gauge.builder("feign.pool.leased", connectionManager, cm -> cm.getTotalStats().getLeased())
+				.description("connections in use").register(registry);
+		Gauge.builder("feign.pool.available", connectionManager, cm -> cm.getTotalStats().getAvailable())
+				.description("idle keep-alive connections").register(registry);
+		Gauge.builder("feign.pool.pending", connectionManager, cm -> cm.getTotalStats().getPending())
+				.description("requests waiting for a connection").register(registry);
+		Gauge.builder("feign.pool.max", connectionManager, cm -> cm.getTotalStats().getMax()).register(registry);
+		Gauge.builder("feign.pool.max.per.route", connectionManager, PoolingHttpClientConnectionManager::getDefaultMaxPerRoute)
+				.register(registry);
+		Gauge.builder("feign.pool.routes", connectionManager, cm -> cm.getRoutes().size()).register(registry);
+	}
+}
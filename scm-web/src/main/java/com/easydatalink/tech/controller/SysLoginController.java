@@ -21,6 +21,7 @@ import com.easydatalink.tech.entity.authortity.SysUser;
 import com.easydatalink.tech.http.HttpResult;
 import com.easydatalink.tech.security.JwtAuthenticatioToken;
 import com.easydatalink.tech.security.SecurityUtils;
+import com.easydatalink.tech.security.UserDetailsServiceImpl;
 import com.easydatalink.tech.service.SysUserServiceImpl;
 import com.easydatalink.tech.utils.PasswordUtils;
 import com.easydatalink.tech.vo.LoginBean;
@@ -41,6 +42,8 @@ public class SysLoginController {
 	private SysUserServiceImpl sysUserService;
 	@Autowired
 	private AuthenticationManager authenticationManager;
+	@Autowired
+	private UserDetailsServiceImpl userDetailsService;
 
 	@GetMapping("captcha.jpg")
 	public void captcha(HttpServletResponse response, HttpServletRequest request) throws ServletException, IOException {
@@ -94,8 +97,9 @@ public class SysLoginController {
 			return HttpResult.error("账号已被锁定,请联系管理员");
 		}
 
-		// 系统登录认证
-		JwtAuthenticatioToken token = SecurityUtils.login(request, username, password, authenticationManager);
+		// 系统登录认证，复用上面查询到的用户，认证过程不再远程查询
+		JwtAuthenticatioToken token = SecurityUtils.login(request, username, password, authenticationManager,
+				userDetailsService.createUserDetails(user));
 				
 		return HttpResult.ok(token);
 	}
@@ -0,0 +1,40 @@
+package com.easydatalink.tech.feign;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 缓存Feign客户端方法的返回值
+ * <p>
+ * 以参数为key，超过refreshSeconds后先返回旧值并在后台刷新，超过ttlSeconds后必须重新调用；
+ * 返回null或调用失败不缓存。服务提供方可按name发布失效通知(见FeignCacheSubscriber)。
+ * 缓存的对象在调用方之间共享，取出后不要修改。
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface FeignCache {
+
+	/**
+	 * 缓存名，失效通知按此匹配
+	 */
+	String name();
+
+	/**
+	 * 最长缓存时间(秒)
+	 */
+	long ttlSeconds() default 600;
+
+	/**
+	 * 超过该时间(秒)后访问会触发后台刷新，刷新完成前返回旧值
+	 */
+	long refreshSeconds() default 60;
+
+	/**
+	 * 最多缓存的条目数
+	 */
+	long maxSize() default 10000;
+}
@@ -0,0 +1,116 @@
+package com.easydatalink.tech.feign;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPubSub;
+
+/**
+ * 订阅服务提供方发布的Feign缓存失效通知(scm-provider的RemoteCacheInvalidator)
+ * <p>
+ * 消息格式：缓存名\nkey1\nkey2...，只有缓存名表示清空该缓存。未配置redis.server.servers时不订阅，只靠TTL过期；
+ * 订阅断开期间可能丢失通知，重新订阅成功后清空所有缓存。集群模式下消息会广播到所有节点，连任一节点即可。
+ */
+@Component
+public class FeignCacheSubscriber {
+
+	private static Logger logger = LoggerFactory.getLogger(FeignCacheSubscriber.class);
+
+	private static final String SEPARATOR = "\n";
+
+	@Value("${feign.cache.channel:scm:feign-cache:invalidate}")
+	private String channel;
+	// host:port,host:port
+	@Value("${redis.server.servers:}")
+	private String servers;
+	@Value("${redis.server.timeout:15000}")
+	private int timeout;
+
+	@Autowired
+	private FeignResponseCache feignResponseCache;
+
+	private volatile boolean running;
+
+	private volatile JedisPubSub pubSub;
+
+	private Thread subscriber;
+
+	@PostConstruct
+	public void init() {
+		if (StringUtils.isBlank(servers)) {
+			logger.info("redis.server.servers not set, feign cache relies on TTL only");
+			return;
+		}
+		running = true;
+		subscriber = new Thread(this::subscribeLoop, "feign-cache-subscriber");
+		subscriber.setDaemon(true);
+		subscriber.start();
+	}
+
+	@PreDestroy
+	public void destroy() {
+		running = false;
+		JedisPubSub current = pubSub;
+		if (current != null && current.isSubscribed())
+			current.unsubscribe();
+		if (subscriber != null)
+			subscriber.interrupt();
+	}
+
+	void onMessage(String message) {
+		String[] parts = message.split(SEPARATOR);
+		if (parts.length == 1) {
+			feignResponseCache.invalidateAll(parts[0]);
+		} else {
+			Set<String> keys = new HashSet<String>(Arrays.asList(parts).subList(1, parts.length));
+			feignResponseCache.invalidate(parts[0], keys);
+		}
+	}
+
+	private void subscribeLoop() {
+		String[] nodes = servers.split(",");
+		int node = 0;
+		while (running) {
+			String[] hostPort = nodes[node++ % nodes.length].trim().split(":");
+			pubSub = new JedisPubSub() {
+				@Override
+				public void onMessage(String ch, String message) {
+					FeignCacheSubscriber.this.onMessage(message);
+				}
+
+				@Override
+				public void onSubscribe(String ch, int subscribedChannels) {
+					// 订阅建立后再清空：断开期间及重连前加载的缓存都可能错过失效通知
+					feignResponseCache.invalidateAll();
+				}
+			};
+			// 订阅连接长时间无消息，读超时设为0
+			try (Jedis jedis = new Jedis(hostPort[0], Integer.parseInt(hostPort[1]), timeout, 0)) {
+				jedis.subscribe(pubSub, channel);
+			} catch (Exception e) {
+				if (running)
+					logger.warn("feign cache invalidation subscriber disconnected: {}", e.getMessage());
+			}
+			if (!running)
+				break;
+			try {
+				Thread.sleep(1000);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+	}
+}
@@ -0,0 +1,45 @@
+package com.easydatalink.tech.feign;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 合并并发的单条查询为一次批量调用
+ * <p>
+ * 用于只有一个参数的Feign客户端方法：windowMillis内到达的请求(最多maxBatch个，相同参数只查一次)合并后调用同一接口的batchMethod，
+ * batchMethod接收参数列表、返回结果列表，按结果的keyProperty属性与参数对应，没有对应结果的返回null。
+ * 与@FeignCache同时使用时只有缓存未命中的请求参与合并。
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface FeignCollapse {
+
+	/**
+	 * 批量方法名
+	 */
+	String batchMethod();
+
+	/**
+	 * 结果中与参数对应的属性
+	 */
+	String keyProperty();
+
+	/**
+	 * 按忽略大小写匹配结果与参数(服务方按大小写不敏感的排序规则查询时，如MySQL默认collation)
+	 */
+	boolean ignoreCase() default false;
+
+	/**
+	 * 合并窗口(毫秒)，小于0时取feign.collapse.windowMillis
+	 */
+	long windowMillis() default -1;
+
+	/**
+	 * 每批最多请求数，小于0时取feign.collapse.maxBatch
+	 */
+	int maxBatch() default -1;
+}
@@ -0,0 +1,294 @@
+package com.easydatalink.tech.feign;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import com.easydatalink.tech.utils.ClassAccessor;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+
+/**
+ * 为带@FeignCache/@FeignCollapse方法的Feign客户端加上本地响应缓存和请求合并
+ * <p>
+ * Feign客户端bean创建后包一层代理，@FeignCache的方法先查Caffeine缓存(refreshAfterWrite实现过期后先返回旧值再后台刷新)，
+ * @FeignCollapse的方法(缓存未命中时)经RequestCollapser合并为批量调用，其余方法直接调用。
+ * 失效通知由FeignCacheSubscriber收到后调用invalidate。
+ */
+@Component
+public class FeignResponseCache implements BeanPostProcessor {
+
+	private static Logger logger = LoggerFactory.getLogger(FeignResponseCache.class);
+
+	@Value("${feign.cache.enabled:true}")
+	private boolean enabled;
+	@Value("${feign.collapse.enabled:true}")
+	private boolean collapseEnabled;
+	@Value("${feign.collapse.windowMillis:5}")
+	private long collapseWindowMillis;
+	@Value("${feign.collapse.maxBatch:100}")
+	private int collapseMaxBatch;
+
+	// 缓存名 -> 该名下所有方法的缓存
+	private final ConcurrentMap<String, List<MethodCache>> caches = new ConcurrentHashMap<String, List<MethodCache>>();
+
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+		if (!enabled && !collapseEnabled) {
+			return bean;
+		}
+		Class<?>[] interfaces = ClassUtils.getAllInterfaces(bean);
+		Class<?> client = null;
+		for (Class<?> type : interfaces) {
+			if (AnnotationUtils.findAnnotation(type, FeignClient.class) != null && hasDecoratedMethod(type)) {
+				client = type;
+				break;
+			}
+		}
+		if (client == null) {
+			return bean;
+		}
+		final Object target = bean;
+		final Map<Method, Call> calls = new ConcurrentHashMap<Method, Call>();
+		for (Method method : client.getMethods()) {
+			Call call = null;
+			FeignCollapse collapse = AnnotationUtils.findAnnotation(method, FeignCollapse.class);
+			if (collapseEnabled && collapse != null) {
+				call = createCollapsedCall(client, target, method, collapse);
+			}
+			FeignCache annotation = AnnotationUtils.findAnnotation(method, FeignCache.class);
+			if (enabled && annotation != null) {
+				call = createCachedCall(target, method, annotation, call, collapse != null && collapse.ignoreCase());
+			}
+			if (call != null) {
+				calls.put(method, call);
+			}
+		}
+		ProxyFactory proxyFactory = new ProxyFactory(interfaces);
+		proxyFactory.setTarget(target);
+		proxyFactory.addAdvice((MethodInterceptor) invocation -> {
+			Call call = calls.get(invocation.getMethod());
+			return call == null ? invocation.proceed() : call.call(invocation.getArguments());
+		});
+		logger.info("feign response cache/collapsing enabled for {}", client.getName());
+		return proxyFactory.getProxy(ClassUtils.getDefaultClassLoader());
+	}
+
+	/**
+	 * 失效缓存name中的指定key，key为参数按","连接的字符串；@FeignCollapse(ignoreCase=true)的方法忽略大小写匹配
+	 */
+	public void invalidate(String name, Collection<String> keys) {
+		List<MethodCache> list = caches.get(name);
+		if (list == null) {
+			return;
+		}
+		Set<String> lowerKeys = null;
+		for (MethodCache mc : list) {
+			Collection<String> match = keys;
+			if (mc.ignoreCase) {
+				if (lowerKeys == null) {
+					lowerKeys = new HashSet<String>();
+					for (String key : keys) {
+						lowerKeys.add(key.toLowerCase(Locale.ROOT));
+					}
+				}
+				match = lowerKeys;
+			}
+			final Collection<String> texts = match;
+			mc.cache.asMap().keySet().removeIf(key -> texts.contains(key.text));
+		}
+	}
+
+	/**
+	 * 清空缓存name
+	 */
+	public void invalidateAll(String name) {
+		List<MethodCache> list = caches.get(name);
+		if (list == null) {
+			return;
+		}
+		for (MethodCache mc : list) {
+			mc.cache.invalidateAll();
+		}
+	}
+
+	/**
+	 * 清空所有缓存，失效通知可能丢失时使用
+	 */
+	public void invalidateAll() {
+		for (String name : caches.keySet()) {
+			invalidateAll(name);
+		}
+	}
+
+	private Call createCachedCall(final Object target, final Method method, FeignCache annotation, final Call loader,
+			final boolean ignoreCase) {
+		Caffeine<Object, Object> builder = Caffeine.newBuilder()
+				.maximumSize(annotation.maxSize())
+				.expireAfterWrite(annotation.ttlSeconds(), TimeUnit.SECONDS);
+		if (annotation.refreshSeconds() > 0 && annotation.refreshSeconds() < annotation.ttlSeconds()) {
+			builder.refreshAfterWrite(annotation.refreshSeconds(), TimeUnit.SECONDS);
+		}
+		final Call origin = loader != null ? loader : args -> invoke(target, method, args);
+		final LoadingCache<CacheKey, Object> cache = builder.build(key -> {
+			try {
+				return origin.call(key.args);
+			} catch (Exception | Error e) {
+				throw e;
+			} catch (Throwable e) {
+				throw new UndeclaredThrowableException(e);
+			}
+		});
+		caches.computeIfAbsent(annotation.name(), k -> new CopyOnWriteArrayList<MethodCache>()).add(new MethodCache(cache, ignoreCase));
+		return args -> {
+			try {
+				return cache.get(new CacheKey(args, ignoreCase));
+			} catch (CompletionException e) {
+				throw e.getCause() != null ? e.getCause() : e;
+			}
+		};
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private Call createCollapsedCall(Class<?> client, final Object target, Method method, FeignCollapse annotation) {
+		if (method.getParameterCount() != 1) {
+			throw new IllegalStateException("@FeignCollapse needs a single-argument method: " + method);
+		}
+		final Method batchMethod = findBatchMethod(client, annotation.batchMethod());
+		final String keyProperty = annotation.keyProperty();
+		final boolean ignoreCase = annotation.ignoreCase();
+		long window = annotation.windowMillis() >= 0 ? annotation.windowMillis() : collapseWindowMillis;
+		int maxBatch = annotation.maxBatch() > 0 ? annotation.maxBatch() : collapseMaxBatch;
+		final RequestCollapser<Object, Object> collapser = new RequestCollapser<Object, Object>(window, maxBatch, keys -> {
+			Object results;
+			try {
+				results = invoke(target, batchMethod, new Object[] { keys });
+			} catch (RuntimeException | Error e) {
+				throw e;
+			} catch (Throwable e) {
+				throw new UndeclaredThrowableException(e);
+			}
+			Map<Object, Object> byKey = new HashMap<Object, Object>();
+			if (results != null) {
+				for (Object item : (Collection) results) {
+					if (item != null) {
+						Object key = ClassAccessor.of(item.getClass()).getPropertyGetter(keyProperty).apply(item);
+						byKey.put(normalizeKey(key, ignoreCase), item);
+					}
+				}
+			}
+			// 结果按请求的key返回，忽略大小写时"Alice"可以取到alice
+			Map<Object, Object> byRequest = new HashMap<Object, Object>();
+			for (Object key : keys) {
+				byRequest.put(key, byKey.get(normalizeKey(key, ignoreCase)));
+			}
+			return byRequest;
+		});
+		return args -> collapser.get(args[0]);
+	}
+
+	private static Object normalizeKey(Object key, boolean ignoreCase) {
+		return ignoreCase && key instanceof String ? ((String) key).toLowerCase(Locale.ROOT) : key;
+	}
+
+	private static Method findBatchMethod(Class<?> client, String name) {
+		for (Method m : client.getMethods()) {
+			if (m.getName().equals(name) && m.getParameterCount() == 1
+					&& m.getParameterTypes()[0].isAssignableFrom(List.class)
+					&& Collection.class.isAssignableFrom(m.getReturnType())) {
+				return m;
+			}
+		}
+		throw new IllegalStateException("batch method " + name + "(List) returning a collection not found on " + client.getName());
+	}
+
+	private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getTargetException();
+		}
+	}
+
+	private static boolean hasDecoratedMethod(Class<?> type) {
+		for (Method method : type.getMethods()) {
+			if (AnnotationUtils.findAnnotation(method, FeignCache.class) != null
+					|| AnnotationUtils.findAnnotation(method, FeignCollapse.class) != null) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * 被代理方法的实际调用
+	 */
+	private interface Call {
+		Object call(Object[] args) throws Throwable;
+	}
+
+	/**
+	 * 一个方法的缓存，ignoreCase时按小写匹配失效通知
+	 */
+	private static final class MethodCache {
+		final LoadingCache<CacheKey, Object> cache;
+		final boolean ignoreCase;
+
+		MethodCache(LoadingCache<CacheKey, Object> cache, boolean ignoreCase) {
+			this.cache = cache;
+			this.ignoreCase = ignoreCase;
+		}
+	}
+
+	/**
+	 * 参数作为key，text为参数按","连接的字符串(ignoreCase时转小写)，用于匹配失效通知
+	 */
+	static final class CacheKey {
+		final Object[] args;
+		final String text;
+		private final int hash;
+
+		CacheKey(Object[] args, boolean ignoreCase) {
+			this.args = args == null ? new Object[0] : args;
+			String joined = StringUtils.join(this.args, ",");
+			this.text = ignoreCase ? joined.toLowerCase(Locale.ROOT) : joined;
+			this.hash = Arrays.deepHashCode(this.args);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof CacheKey && Arrays.deepEquals(args, ((CacheKey) o).args);
+		}
+	}
+}
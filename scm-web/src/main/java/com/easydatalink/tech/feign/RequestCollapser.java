@@ -0,0 +1,163 @@
+package com.easydatalink.tech.feign;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 请求合并器：windowMillis内提交的key合并为一次批量加载，达到maxBatch时立即加载
+ * <p>
+ * 窗口到期的批次由定时线程交给公共线程池执行(定时线程自身从不执行加载)，线程池和队列都满时该批次直接失败；
+ * 满批的由提交最后一个key的线程直接执行(它本来也要等结果)。同一批次中相同的key共享结果，批量加载失败时该批次所有请求都失败。
+ */
+public class RequestCollapser<K, V> {
+
+	private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+	private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread t = new Thread(r, "request-collapser-timer");
+		t.setDaemon(true);
+		return t;
+	});
+
+	// 有界队列，满时拒绝(AbortPolicy)，不在定时线程上执行
+	private static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(64, 64, 60, TimeUnit.SECONDS,
+			new LinkedBlockingQueue<Runnable>(1000), r -> {
+				Thread t = new Thread(r, "request-collapser-" + THREAD_COUNT.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			});
+
+	static {
+		EXECUTOR.allowCoreThreadTimeOut(true);
+	}
+
+	private final long windowMillis;
+	private final int maxBatch;
+	private final Function<List<K>, Map<K, V>> batchLoader;
+	private final Executor executor;
+
+	private Batch current = new Batch();
+
+	/**
+	 * @param windowMillis 合并窗口
+	 * @param maxBatch 每批最多key数
+	 * @param batchLoader 批量加载，返回key到结果的映射，没有结果的key可以不出现
+	 */
+	public RequestCollapser(long windowMillis, int maxBatch, Function<List<K>, Map<K, V>> batchLoader) {
+		this(windowMillis, maxBatch, batchLoader, EXECUTOR);
+	}
+
+	/**
+	 * 指定执行窗口到期批次的线程池
+	 */
+	RequestCollapser(long windowMillis, int maxBatch, Function<List<K>, Map<K, V>> batchLoader, Executor executor) {
+		this.windowMillis = windowMillis;
+		this.maxBatch = Math.max(maxBatch, 1);
+		this.batchLoader = batchLoader;
+		this.executor = executor;
+	}
+
+	public CompletableFuture<V> submit(K key) {
+		Batch full = null;
+		CompletableFuture<V> future;
+		synchronized (this) {
+			final Batch batch = current;
+			future = batch.requests.get(key);
+			if (future == null) {
+				future = new CompletableFuture<V>();
+				batch.requests.put(key, future);
+				if (batch.requests.size() == 1 && maxBatch > 1) {
+					TIMER.schedule(() -> dispatch(batch), windowMillis, TimeUnit.MILLISECONDS);
+				}
+				if (batch.requests.size() >= maxBatch) {
+					current = new Batch();
+					batch.flushed = true;
+					full = batch;
+				}
+			}
+		}
+		if (full != null) {
+			load(full);
+		}
+		return future;
+	}
+
+	/**
+	 * 提交并等待结果
+	 */
+	public V get(K key) throws Throwable {
+		try {
+			return submit(key).join();
+		} catch (CompletionException e) {
+			throw e.getCause() != null ? e.getCause() : e;
+		}
+	}
+
+	/**
+	 * 定时线程上执行：只把批次交给线程池
+	 */
+	private void dispatch(Batch batch) {
+		try {
+			executor.execute(() -> flush(batch));
+		} catch (RejectedExecutionException e) {
+			synchronized (this) {
+				if (batch.flushed) {
+					return;
+				}
+				batch.flushed = true;
+				if (current == batch) {
+					current = new Batch();
+				}
+			}
+			for (CompletableFuture<V> f : batch.requests.values()) {
+				f.completeExceptionally(e);
+			}
+		}
+	}
+
+	private void flush(Batch batch) {
+		synchronized (this) {
+			if (batch.flushed) {
+				return;
+			}
+			batch.flushed = true;
+			if (current == batch) {
+				current = new Batch();
+			}
+		}
+		load(batch);
+	}
+
+	private void load(Batch batch) {
+		Map<K, V> results;
+		try {
+			results = batchLoader.apply(new ArrayList<K>(batch.requests.keySet()));
+		} catch (Throwable e) {
+			for (CompletableFuture<V> f : batch.requests.values()) {
+				f.completeExceptionally(e);
+			}
+			return;
+		}
+		for (Map.Entry<K, CompletableFuture<V>> e : batch.requests.entrySet()) {
+			e.getValue().complete(results == null ? null : results.get(e.getKey()));
+		}
+	}
+
+	private class Batch {
+		final Map<K, CompletableFuture<V>> requests = new LinkedHashMap<K, CompletableFuture<V>>();
+		boolean flushed;
+	}
+}
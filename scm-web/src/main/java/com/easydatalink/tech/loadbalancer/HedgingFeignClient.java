@@ -0,0 +1,217 @@
+package com.easydatalink.tech.loadbalancer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import feign.Client;
+import feign.Request;
+import feign.Request.Options;
+import feign.Response;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+
+/**
+ * 对冲请求：GET请求超过该服务p95响应时间仍未返回时，再经负载均衡发一次(LatencyAwareRule会避开还有在途请求的慢实例)，
+ * 取先成功的结果，另一个的响应到达后直接关闭
+ * <p>
+ * 只用于幂等的GET；样本数不足minSamples时不对冲；对冲次数不超过请求数的maxRatio，避免慢的时候放大负载。
+ * 包在LoadBalancerFeignClient外面，Feign的URL里host为服务名。
+ */
+public class HedgingFeignClient implements Client {
+
+	private static Logger logger = LoggerFactory.getLogger(HedgingFeignClient.class);
+
+	private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+	// 池满时拒绝提交：主请求改由调用线程直接执行，对冲请求放弃，只等主请求
+	private static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(0, 256, 60, TimeUnit.SECONDS,
+			new SynchronousQueue<Runnable>(), r -> {
+				Thread t = new Thread(r, "feign-hedge-" + THREAD_COUNT.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			}, new ThreadPoolExecutor.AbortPolicy());
+
+	private final Client delegate;
+	private final MeterRegistry registry;
+	private final long minDelayNanos;
+	private final double maxRatio;
+	private final long minSamples;
+
+	private final ConcurrentMap<String, ServiceStats> services = new ConcurrentHashMap<String, ServiceStats>();
+
+	/**
+	 * @param minDelayMillis 对冲延迟下限
+	 * @param maxRatio 对冲请求数占GET请求数的上限
+	 * @param minSamples 开始对冲前该服务至少需要的响应数
+	 */
+	public HedgingFeignClient(Client delegate, MeterRegistry registry, long minDelayMillis, double maxRatio, long minSamples) {
+		this.delegate = delegate;
+		this.registry = registry;
+		this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(minDelayMillis);
+		this.maxRatio = maxRatio;
+		this.minSamples = minSamples;
+	}
+
+	@Override
+	public Response execute(Request request, Options options) throws IOException {
+		if (!"GET".equalsIgnoreCase(request.method())) {
+			return delegate.execute(request, options);
+		}
+		ServiceStats stats = stats(URI.create(request.url()).getHost());
+		stats.requests.incrementAndGet();
+		long delay = stats.hedgeDelayNanos();
+		if (delay < 0) {
+			return stats.timed(request, options);
+		}
+		CompletableFuture<Response> primary;
+		try {
+			primary = stats.submit(request, options);
+		} catch (RejectedExecutionException e) {
+			return stats.timed(request, options);
+		}
+		try {
+			return primary.get(delay, TimeUnit.NANOSECONDS);
+		} catch (TimeoutException e) {
+			// 继续对冲
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			closeWhenDone(primary);
+			throw new IOException("interrupted", e);
+		} catch (ExecutionException e) {
+			throw unwrap(e);
+		}
+		CompletableFuture<Response> hedge = stats.tryHedge(request, options);
+		if (hedge == null) {
+			return join(primary);
+		}
+		CompletableFuture<Response> winner = new CompletableFuture<Response>();
+		AtomicInteger pending = new AtomicInteger(2);
+		race(primary, winner, pending);
+		race(hedge, winner, pending);
+		return join(winner);
+	}
+
+	private ServiceStats stats(String service) {
+		ServiceStats s = services.get(service);
+		return s != null ? s : services.computeIfAbsent(service, ServiceStats::new);
+	}
+
+	private static void race(CompletableFuture<Response> attempt, CompletableFuture<Response> winner, AtomicInteger pending) {
+		attempt.whenComplete((response, e) -> {
+			if (e == null) {
+				if (!winner.complete(response)) {
+					response.close();
+				}
+			} else if (pending.decrementAndGet() == 0) {
+				winner.completeExceptionally(e);
+			}
+		});
+	}
+
+	private static void closeWhenDone(CompletableFuture<Response> future) {
+		future.thenAccept(Response::close);
+	}
+
+	private static Response join(CompletableFuture<Response> future) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			closeWhenDone(future);
+			throw new IOException("interrupted", e);
+		} catch (ExecutionException e) {
+			throw unwrap(e);
+		}
+	}
+
+	private static IOException unwrap(ExecutionException e) {
+		Throwable cause = e.getCause();
+		if (cause instanceof UncheckedIOException) {
+			return ((UncheckedIOException) cause).getCause();
+		}
+		if (cause instanceof IOException) {
+			return (IOException) cause;
+		}
+		if (cause instanceof RuntimeException) {
+			throw (RuntimeException) cause;
+		}
+		if (cause instanceof Error) {
+			throw (Error) cause;
+		}
+		return new IOException(cause);
+	}
+
+	private final class ServiceStats {
+		final AtomicLong requests = new AtomicLong();
+		final Timer latency;
+		final Counter hedges;
+
+		ServiceStats(String service) {
+			latency = Timer.builder("feign.hedge.latency").tag("service", service).publishPercentiles(0.95)
+					.description("response time of GET attempts, p95 is the hedge delay").register(registry);
+			hedges = Counter.builder("feign.hedge.requests").tag("service", service).description("hedged attempts sent")
+					.register(registry);
+		}
+
+		long hedgeDelayNanos() {
+			if (latency.count() < minSamples) {
+				return -1;
+			}
+			ValueAtPercentile[] p95 = latency.takeSnapshot(false).percentileValues();
+			return p95.length == 0 ? -1 : Math.max((long) p95[0].value(TimeUnit.NANOSECONDS), minDelayNanos);
+		}
+
+		/**
+		 * 未超过对冲比例且线程池有空闲时发出对冲请求，否则返回null
+		 */
+		CompletableFuture<Response> tryHedge(Request request, Options options) {
+			if (hedges.count() + 1 > requests.get() * maxRatio) {
+				return null;
+			}
+			CompletableFuture<Response> hedge;
+			try {
+				hedge = submit(request, options);
+			} catch (RejectedExecutionException e) {
+				logger.debug("hedge pool saturated, waiting for the primary attempt only");
+				return null;
+			}
+			hedges.increment();
+			logger.debug("hedging GET after p95 delay, {} hedges / {} requests", hedges.count(), requests.get());
+			return hedge;
+		}
+
+		Response timed(Request request, Options options) throws IOException {
+			long start = System.nanoTime();
+			Response response = delegate.execute(request, options);
+			latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+			return response;
+		}
+
+		CompletableFuture<Response> submit(Request request, Options options) {
+			return CompletableFuture.supplyAsync(() -> {
+				try {
+					return timed(request, options);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}, EXECUTOR);
+		}
+	}
+}
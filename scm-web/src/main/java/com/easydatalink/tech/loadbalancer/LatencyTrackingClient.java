@@ -0,0 +1,39 @@
+package com.easydatalink.tech.loadbalancer;
+
+import java.io.IOException;
+import java.net.URI;
+
+import feign.Client;
+import feign.Request;
+import feign.Request.Options;
+import feign.Response;
+
+/**
+ * 包装负载均衡之后的Feign Client(请求地址已是实例的host:port)，向ServerLatencyTracker报告响应时间
+ * <p>
+ * 5xx响应和IO异常按失败计。
+ */
+public class LatencyTrackingClient implements Client {
+
+	private final ServerLatencyTracker tracker = ServerLatencyTracker.getInstance();
+
+	private final Client delegate;
+
+	public LatencyTrackingClient(Client delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public Response execute(Request request, Options options) throws IOException {
+		String hostPort = ServerLatencyTracker.hostPort(URI.create(request.url()));
+		long start = tracker.start(hostPort);
+		boolean failed = true;
+		try {
+			Response response = delegate.execute(request, options);
+			failed = response.status() >= 500;
+			return response;
+		} finally {
+			tracker.end(hostPort, start, failed);
+		}
+	}
+}
@@ -0,0 +1,72 @@
+package com.easydatalink.tech.loadbalancer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+
+/**
+ * 供@LoadBalanced RestTemplate使用的请求工厂，向ServerLatencyTracker报告响应时间
+ * <p>
+ * 拦截器(包括负载均衡)执行完才创建请求，此时URI已是实例地址。只计到收到响应头为止。
+ */
+public class LatencyTrackingRequestFactory implements ClientHttpRequestFactory {
+
+	private final ServerLatencyTracker tracker = ServerLatencyTracker.getInstance();
+
+	private final ClientHttpRequestFactory delegate;
+
+	public LatencyTrackingRequestFactory(ClientHttpRequestFactory delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+		final ClientHttpRequest request = delegate.createRequest(uri, httpMethod);
+		final String hostPort = ServerLatencyTracker.hostPort(uri);
+		return new ClientHttpRequest() {
+			@Override
+			public ClientHttpResponse execute() throws IOException {
+				long start = tracker.start(hostPort);
+				boolean failed = true;
+				try {
+					ClientHttpResponse response = request.execute();
+					failed = response.getRawStatusCode() >= 500;
+					return response;
+				} finally {
+					tracker.end(hostPort, start, failed);
+				}
+			}
+
+			@Override
+			public OutputStream getBody() throws IOException {
+				return request.getBody();
+			}
+
+			@Override
+			public HttpMethod getMethod() {
+				return request.getMethod();
+			}
+
+			@Override
+			public String getMethodValue() {
+				return request.getMethodValue();
+			}
+
+			@Override
+			public URI getURI() {
+				return request.getURI();
+			}
+
+			@Override
+			public HttpHeaders getHeaders() {
+				return request.getHeaders();
+			}
+		};
+	}
+}
@@ -0,0 +1,113 @@
+package com.easydatalink.tech.loadbalancer;
+
+import java.net.URI;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按服务实例(host:port)统计响应时间和在途请求数，供LatencyAwareRule选择实例
+ * <p>
+ * 响应时间用peak EWMA：比当前值慢的响应立即生效，快的响应按时间衰减平滑；长时间没有新样本时估计值向0衰减，
+ * 被冷落的慢实例过一段时间会重新得到试探流量。失败按不低于FAILURE_PENALTY计。
+ * 由传输层(Feign Client、RestTemplate请求工厂)在拿到负载均衡后的真实地址时调用start/end。
+ */
+public final class ServerLatencyTracker {
+
+	private static final ServerLatencyTracker INSTANCE = new ServerLatencyTracker();
+
+	private static final long FAILURE_PENALTY = TimeUnit.SECONDS.toNanos(1);
+
+	private final ConcurrentMap<String, Stats> stats = new ConcurrentHashMap<String, Stats>();
+
+	private volatile double decayNanos = TimeUnit.SECONDS.toNanos(10);
+
+	private ServerLatencyTracker() {
+	}
+
+	public static ServerLatencyTracker getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * EWMA衰减时间常数(毫秒)
+	 */
+	public void setDecayMillis(long decayMillis) {
+		this.decayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(decayMillis, 1));
+	}
+
+	/**
+	 * 请求开始，返回开始时间，结束时传给end
+	 */
+	public long start(String hostPort) {
+		stats(hostPort).outstanding.incrementAndGet();
+		return System.nanoTime();
+	}
+
+	public void end(String hostPort, long startNanos, boolean failed) {
+		long now = System.nanoTime();
+		long rtt = now - startNanos;
+		Stats s = stats(hostPort);
+		s.outstanding.decrementAndGet();
+		s.observe(failed ? Math.max(rtt, FAILURE_PENALTY) : rtt, now, decayNanos);
+	}
+
+	/**
+	 * 选择代价：(响应时间估计 + 1ms) * (在途请求数 + 1)，越小越好；没有样本的实例响应时间按0计
+	 */
+	public double cost(String hostPort) {
+		Stats s = stats.get(hostPort);
+		if (s == null) {
+			return TimeUnit.MILLISECONDS.toNanos(1);
+		}
+		return (s.estimate(System.nanoTime(), decayNanos) + TimeUnit.MILLISECONDS.toNanos(1))
+				* (Math.max(s.outstanding.get(), 0) + 1);
+	}
+
+	/**
+	 * 当前响应时间估计(毫秒)，没有样本时为0
+	 */
+	public double latencyMillis(String hostPort) {
+		Stats s = stats.get(hostPort);
+		return s == null ? 0 : s.estimate(System.nanoTime(), decayNanos) / TimeUnit.MILLISECONDS.toNanos(1);
+	}
+
+	public int outstanding(String hostPort) {
+		Stats s = stats.get(hostPort);
+		return s == null ? 0 : s.outstanding.get();
+	}
+
+	static String hostPort(URI uri) {
+		int port = uri.getPort();
+		if (port < 0) {
+			port = "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+		}
+		return uri.getHost() + ":" + port;
+	}
+
+	private Stats stats(String hostPort) {
+		Stats s = stats.get(hostPort);
+		return s != null ? s : stats.computeIfAbsent(hostPort, k -> new Stats());
+	}
+
+	private static final class Stats {
+		final AtomicInteger outstanding = new AtomicInteger();
+		private double ewma;
+		private long stamp = System.nanoTime();
+
+		synchronized void observe(double rtt, long now, double decayNanos) {
+			if (rtt > ewma) {
+				ewma = rtt;
+			} else {
+				double w = Math.exp(-Math.max(now - stamp, 0) / decayNanos);
+				ewma = ewma * w + rtt * (1 - w);
+			}
+			stamp = now;
+		}
+
+		synchronized double estimate(long now, double decayNanos) {
+			return ewma * Math.exp(-Math.max(now - stamp, 0) / decayNanos);
+		}
+	}
+}
@@ -1,10 +1,16 @@
 package com.easydatalink.tech.provider;
 
+import java.util.List;
+
 import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 
 import com.easydatalink.tech.entity.authortity.SysUser;
+import com.easydatalink.tech.feign.FeignCache;
+import com.easydatalink.tech.feign.FeignCollapse;
 
 /**
  * 用户管理
@@ -12,6 +18,13 @@ import com.easydatalink.tech.entity.authortity.SysUser;
 @FeignClient(name = "scm-provider")
 public interface SysUserService{
 	
+	// 结果用于登录时的密码和锁定校验：没有失效通知(未配置redis.server.servers)时最多旧10秒，且不做过期后先返回旧值的后台刷新
+	@FeignCache(name = "user", ttlSeconds = 10, refreshSeconds = 0)
+	// 登录名列按MySQL默认collation大小写不敏感匹配
+	@FeignCollapse(batchMethod = "findByNames", keyProperty = "name", ignoreCase = true)
 	@RequestMapping("/authority/user/findByName")
 	SysUser findByName(@RequestParam("username") String username);
+	
+	@RequestMapping(value = "/authority/user/findByNames", method = RequestMethod.POST)
+	List<SysUser> findByNames(@RequestBody List<String> usernames);
 }
@@ -4,6 +4,7 @@ import java.util.Collection;
 
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
 
 /**
  * 自定义令牌对象
@@ -16,6 +17,11 @@ public class JwtAuthenticatioToken extends UsernamePasswordAuthenticationToken {
 	
 	private String token;
 
+	/**
+	 * 登录时已查询到的用户，认证时不再重复查询；不序列化，也不作为属性暴露
+	 */
+	private transient UserDetails preloadedUser;
+
     public JwtAuthenticatioToken(Object principal, Object credentials){
         super(principal, credentials);
     }
@@ -38,6 +44,14 @@ public class JwtAuthenticatioToken extends UsernamePasswordAuthenticationToken {
 		this.token = token;
 	}
 
+	UserDetails preloadedUser() {
+		return preloadedUser;
+	}
+
+	void preloadUser(UserDetails preloadedUser) {
+		this.preloadedUser = preloadedUser;
+	}
+
 	public static long getSerialversionuid() {
 		return serialVersionUID;
 	}
@@ -25,7 +25,21 @@ public class SecurityUtils {
 	 * @return
 	 */
 	public static JwtAuthenticatioToken login(HttpServletRequest request, String username, String password, AuthenticationManager authenticationManager) {
+		return login(request, username, password, authenticationManager, null);
+	}
+
+	/**
+	 * 系统登录认证，使用调用方已查询到的用户信息，认证过程不再查询用户
+	 * @param request
+	 * @param username
+	 * @param password
+	 * @param authenticationManager
+	 * @param userDetails 已查询到的用户，为null时由UserDetailsService查询
+	 * @return
+	 */
+	public static JwtAuthenticatioToken login(HttpServletRequest request, String username, String password, AuthenticationManager authenticationManager, UserDetails userDetails) {
 		JwtAuthenticatioToken token = new JwtAuthenticatioToken(username, password);
+		token.preloadUser(userDetails);
 		token.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 		// 执行登录认证过程
 	    Authentication authentication = authenticationManager.authenticate(token);
@@ -33,6 +47,7 @@ public class SecurityUtils {
 	    SecurityContextHolder.getContext().setAuthentication(authentication);
 		// 生成令牌并返回给客户端
 	    token.setToken(JwtTokenUtils.generateToken(authentication));
+	    token.preloadUser(null);
 		return token;
 	}
 
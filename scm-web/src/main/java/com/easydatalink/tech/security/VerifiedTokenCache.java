@@ -0,0 +1,124 @@
+package com.easydatalink.tech.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.springframework.security.core.GrantedAuthority;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.jsonwebtoken.Claims;
+
+/**
+ * 已验签令牌的缓存
+ * <p>
+ * 以令牌的SHA-256摘要为key，缓存验签后的声明和权限列表，同一令牌在有效期内只做一次HS512验签和JSON解析；
+ * 条目在令牌过期或最多缓存TTL后失效，验签失败的令牌不缓存。
+ */
+class VerifiedTokenCache {
+
+	/**
+	 * 最多缓存的令牌数
+	 */
+	private static final long MAX_SIZE = 10000;
+	/**
+	 * 单个令牌最长缓存10分钟
+	 */
+	private static final long MAX_TTL = 10 * 60 * 1000;
+
+	private static final Cache<String, VerifiedToken> CACHE = Caffeine.newBuilder()
+			.maximumSize(MAX_SIZE)
+			.expireAfter(new Expiry<String, VerifiedToken>() {
+				@Override
+				public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+					long ttl = Math.min(MAX_TTL, value.expiresAt - System.currentTimeMillis());
+					return TimeUnit.MILLISECONDS.toNanos(Math.max(ttl, 0));
+				}
+
+				@Override
+				public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+					return currentDuration;
+				}
+
+				@Override
+				public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+					return currentDuration;
+				}
+			})
+			.build();
+
+	private VerifiedTokenCache() {
+	}
+
+	/**
+	 * 取已验签的令牌，未缓存时用verifier验签
+	 * @param token 令牌
+	 * @param verifier 验签并返回声明，失败返回null
+	 * @return 验签失败返回null
+	 */
+	static VerifiedToken get(String token, Function<String, Claims> verifier) {
+		String key = digest(token);
+		VerifiedToken verified = CACHE.getIfPresent(key);
+		if (verified != null) {
+			return verified;
+		}
+		Claims claims = verifier.apply(token);
+		if (claims == null) {
+			return null;
+		}
+		verified = new VerifiedToken(claims);
+		CACHE.put(key, verified);
+		return verified;
+	}
+
+	private static String digest(String token) {
+		try {
+			MessageDigest md = MessageDigest.getInstance("SHA-256");
+			return Base64.getEncoder().encodeToString(md.digest(token.getBytes(StandardCharsets.UTF_8)));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * 验签后的令牌
+	 */
+	static class VerifiedToken {
+
+		final Claims claims;
+		final String username;
+		final List<GrantedAuthority> authorities;
+		final long expiresAt;
+
+		@SuppressWarnings("rawtypes")
+		VerifiedToken(Claims claims) {
+			this.claims = claims;
+			this.username = claims.getSubject();
+			Date expiration = claims.getExpiration();
+			this.expiresAt = expiration == null ? Long.MAX_VALUE : expiration.getTime();
+			Object authors = claims.get(JwtTokenUtils.AUTHORITIES);
+			List<GrantedAuthority> authorities = new ArrayList<GrantedAuthority>();
+			if (authors != null && authors instanceof List) {
+				for (Object object : (List) authors) {
+					authorities.add(new GrantedAuthorityImpl((String) ((Map) object).get("authority")));
+				}
+			}
+			this.authorities = Collections.unmodifiableList(authorities);
+		}
+
+		boolean isExpired() {
+			return expiresAt < System.currentTimeMillis();
+		}
+	}
+}
@@ -0,0 +1,155 @@
+package com.easydatalink.tech.feign;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class RequestCollapserTest {
+
+	// 每次批量加载收到的key
+	private final List<List<String>> batches = new CopyOnWriteArrayList<List<String>>();
+
+	// 返回 key -> key.toUpperCase()，"missing"没有结果
+	private final Function<List<String>, Map<String, String>> loader = keys -> {
+		batches.add(keys);
+		Map<String, String> results = new HashMap<String, String>();
+		for (String key : keys) {
+			if (!"missing".equals(key)) {
+				results.put(key, key.toUpperCase());
+			}
+		}
+		return results;
+	};
+
+	@Before
+	public void setUp() {
+		batches.clear();
+	}
+
+	@Test
+	public void requestsWithinWindowAreLoadedInOneBatch() throws Exception {
+		RequestCollapser<String, String> collapser = new RequestCollapser<String, String>(50, 100, loader);
+		CompletableFuture<String> a = collapser.submit("a");
+		CompletableFuture<String> b = collapser.submit("b");
+
+		assertEquals("A", a.get(2, TimeUnit.SECONDS));
+		assertEquals("B", b.get(2, TimeUnit.SECONDS));
+		assertEquals(Arrays.asList(Arrays.asList("a", "b")), batches);
+	}
+
+	@Test
+	public void fullBatchIsLoadedWithoutWaitingForWindow() throws Exception {
+		RequestCollapser<String, String> collapser = new RequestCollapser<String, String>(60000, 2, loader);
+		CompletableFuture<String> a = collapser.submit("a");
+		assertFalse(a.isDone());
+		CompletableFuture<String> b = collapser.submit("b");
+
+		// 满批由提交最后一个key的线程直接加载
+		assertTrue(a.isDone());
+		assertTrue(b.isDone());
+		assertEquals("A", a.get());
+		assertEquals("B", b.get());
+
+		CompletableFuture<String> c = collapser.submit("c");
+		assertFalse("a new batch is started after a full one", c.isDone());
+		collapser.submit("d");
+		assertEquals("C", c.get());
+		assertEquals(Arrays.asList(Arrays.asList("a", "b"), Arrays.asList("c", "d")), batches);
+	}
+
+	@Test
+	public void duplicateKeysInOneBatchShareTheResult() throws Exception {
+		RequestCollapser<String, String> collapser = new RequestCollapser<String, String>(60000, 2, loader);
+		CompletableFuture<String> first = collapser.submit("a");
+		CompletableFuture<String> second = collapser.submit("a");
+		assertSame(first, second);
+		assertFalse("a duplicate key does not count towards maxBatch", first.isDone());
+
+		collapser.submit("b");
+		assertEquals("A", first.get());
+		assertEquals(Arrays.asList(Arrays.asList("a", "b")), batches);
+	}
+
+	@Test
+	public void keysWithoutResultCompleteWithNull() throws Throwable {
+		RequestCollapser<String, String> collapser = new RequestCollapser<String, String>(0, 100, loader);
+		assertNull(collapser.get("missing"));
+	}
+
+	@Test
+	public void loaderFailureFailsEveryRequestOfTheBatch() throws Exception {
+		IllegalStateException error = new IllegalStateException("provider down");
+		RequestCollapser<String, String> collapser = new RequestCollapser<String, String>(60000, 2, keys -> {
+			throw error;
+		});
+		CompletableFuture<String> a = collapser.submit("a");
+		CompletableFuture<String> b = collapser.submit("b");
+
+		assertSame(error, causeOf(a));
+		assertSame(error, causeOf(b));
+		try {
+			new RequestCollapser<String, String>(0, 1, keys -> {
+				throw error;
+			}).get("c");
+			fail();
+		} catch (Throwable e) {
+			assertSame("get rethrows the loader's exception", error, e);
+		}
+	}
+
+	@Test
+	public void rejectedBatchFailsWithoutLoading() throws Exception {
+		RequestCollapser<String, String> collapser = new RequestCollapser<String, String>(1, 100, loader, task -> {
+			throw new RejectedExecutionException("pool full");
+		});
+		CompletableFuture<String> a = collapser.submit("a");
+		CompletableFuture<String> b = collapser.submit("b");
+
+		assertTrue(causeOf(a) instanceof RejectedExecutionException);
+		assertTrue(causeOf(b) instanceof RejectedExecutionException);
+		assertTrue(batches.isEmpty());
+
+		// 之后的批次同样因拒绝而失败
+		CompletableFuture<String> c = collapser.submit("c");
+		assertTrue(causeOf(c) instanceof RejectedExecutionException);
+		assertTrue(batches.isEmpty());
+	}
+
+	@Test
+	public void windowBatchRunsOnTheGivenExecutor() throws Exception {
+		List<String> threads = new CopyOnWriteArrayList<String>();
+		RequestCollapser<String, String> collapser = new RequestCollapser<String, String>(1, 100, keys -> {
+			threads.add(Thread.currentThread().getName());
+			return loader.apply(keys);
+		}, task -> new Thread(task, "collapser-test").start());
+
+		assertEquals("A", collapser.submit("a").get(2, TimeUnit.SECONDS));
+		assertEquals(Arrays.asList("collapser-test"), threads);
+	}
+
+	private static Throwable causeOf(CompletableFuture<?> future) throws Exception {
+		try {
+			future.get(2, TimeUnit.SECONDS);
+		} catch (ExecutionException e) {
+			return e.getCause();
+		}
+		throw new AssertionError("expected the future to fail");
+	}
+}